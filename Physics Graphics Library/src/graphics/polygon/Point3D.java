@@ -70,7 +70,7 @@ public class Point3D
 		double cos = Math.cos(turnAngle);
 		double sin = Math.sin(turnAngle);
 		
-		return new Point3D(z*cos - x*sin, y, z*sin + x*cos);
+		return new Point3D(z*sin + x*cos, y, z*cos - x*sin);
 	}
 	
 	/** Returns a rotated instance of this Point3D about the z-axis through the given angle
@@ -86,6 +86,55 @@ public class Point3D
 		return new Point3D(x*cos - y*sin, x*sin + y*cos, z);
 	}
 	
+	/** Translates this Point3D in place by the given values
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 */
+	public void translateInPlace(double x, double y, double z)
+	{
+		this.x += x;
+		this.y += y;
+		this.z += z;
+	}
+	
+	/** Rotates this Point3D in place about the x-axis by the angle with the given cosine and sine
+	 * 
+	 * @param cos	the cosine of the angle rotated through
+	 * @param sin	the sine of the angle rotated through
+	 */
+	public void rotAboutXInPlace(double cos, double sin)
+	{
+		double rotatedY = y*cos - z*sin;
+		z = y*sin + z*cos;
+		y = rotatedY;
+	}
+	
+	/** Rotates this Point3D in place about the y-axis by the angle with the given cosine and sine
+	 * 
+	 * @param cos	the cosine of the angle rotated through
+	 * @param sin	the sine of the angle rotated through
+	 */
+	public void rotAboutYInPlace(double cos, double sin)
+	{
+		double rotatedX = z*sin + x*cos;
+		z = z*cos - x*sin;
+		x = rotatedX;
+	}
+	
+	/** Rotates this Point3D in place about the z-axis by the angle with the given cosine and sine
+	 * 
+	 * @param cos	the cosine of the angle rotated through
+	 * @param sin	the sine of the angle rotated through
+	 */
+	public void rotAboutZInPlace(double cos, double sin)
+	{
+		double rotatedX = x*cos - y*sin;
+		y = x*sin + y*cos;
+		x = rotatedX;
+	}
+	
 	/**
 	 * @return x-coordinate of instance
 	 */
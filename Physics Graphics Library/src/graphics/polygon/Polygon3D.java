@@ -15,6 +15,9 @@ public class Polygon3D
 	/** The color this polygon is projected with */
 	private Color color;
 	
+	/** The unit normal of this polygon, pointing towards the side from which its points appear counterclockwise, computed when first requested */
+	private double[] normal;
+	
 	/** Parameterized constructor, initializes point array of instance to given array of points
 	 * 
 	 * @param points	the Point3D array this instance will be initialized to
@@ -134,79 +137,137 @@ public class Polygon3D
 		return new Polygon3D(rotatedPoints);
 	}
 	
-	/** Method returning projection of this polygon on to given plane
+	/** Translates this Polygon3D in place by the given values, without allocating new points
 	 * 
-	 * @param view	The View that this polygon is being looked at from
-	 * @return the Projection object resulting from the projection of instance on to given plane 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
 	 */
-	public PolygonProjection getProjection(View view)
+	public void translateInPlace(double x, double y, double z)
 	{
-		Point3D viewPoint = view.getView();
-		Point3D viewedPoint = view.getViewed();
-		
-		double xDisp = viewedPoint.getX() - viewPoint.getX();
-		double yDisp = viewedPoint.getY() - viewPoint.getY();
-		double zDisp = viewedPoint.getZ() - viewPoint.getZ();
-		
-		double xTurnAxis = yDisp;
-		double yTurnAxis = -xDisp;
-		
-		double zTurnAngle = Math.atan2(yTurnAxis, xTurnAxis);
-		double turnAngle = Math.acos(zDisp/Math.sqrt(Math.pow(xDisp, 2) + Math.pow(yDisp, 2) + Math.pow(zDisp, 2)));
+		for(Point3D point : points)
+		{
+			point.translateInPlace(x, y, z);
+		}
+	}
+	
+	/** Rotates this Polygon3D in place about the x-axis through the given angle, without allocating new points
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutXInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
 		
-		Polygon3D rotatedPoly;
+		for(Point3D point : points)
+		{
+			point.rotAboutXInPlace(cos, sin);
+		}
 		
-		/* Translation of space to position rotation axis at origin */
-		rotatedPoly = translate(-viewPoint.getX(), -viewPoint.getY(), -viewPoint.getZ());
+		normal = null;
+	}
+	
+	/** Rotates this Polygon3D in place about the y-axis through the given angle, without allocating new points
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutYInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
 		
-		/* Rotation of space about z-axis to position rotation axis at x-axis */
-		rotatedPoly = rotatedPoly.rotAboutZ(-zTurnAngle);
+		for(Point3D point : points)
+		{
+			point.rotAboutYInPlace(cos, sin);
+		}
 		
-		/* Rotation of space around the x-axis through the angle that positions the view plane at z = k */
-		rotatedPoly = rotatedPoly.rotAboutX(turnAngle);
+		normal = null;
+	}
+	
+	/** Rotates this Polygon3D in place about the z-axis through the given angle, without allocating new points
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutZInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
 		
-		/* Rotation of space about z-axis to reverse the previous z-rotation */
-		rotatedPoly = rotatedPoly.rotAboutZ(zTurnAngle);
+		for(Point3D point : points)
+		{
+			point.rotAboutZInPlace(cos, sin);
+		}
 		
-		Point2D[] projectedPoints = new Point2D[points.length];
-		Point3D[] rotatedPoints = rotatedPoly.getPoints();
+		normal = null;
+	}
+	
+	/** Returns whether the front of this polygon, the side from which its points appear counterclockwise, faces the given point
+	 * 
+	 * @param x	the x-coordinate of the point
+	 * @param y	the y-coordinate of the point
+	 * @param z	the z-coordinate of the point
+	 * @return true if the given point lies in front of the plane of this polygon
+	 */
+	public boolean isFacing(double x, double y, double z)
+	{
+		double[] normal = getNormal();
+		Point3D point = points[0];
 		
-		Point3D maxPoint = rotatedPoints[0];
-		Point3D minPoint = rotatedPoints[0];
+		return normal[0]*(x - point.getX()) + normal[1]*(y - point.getY()) + normal[2]*(z - point.getZ()) > 0;
+	}
+	
+	/** Returns whether the front of this polygon faces the eye of the given view transformation
+	 * 
+	 * @param transform	The ViewTransform of the View that this polygon is being looked at from
+	 * @return true if this polygon is seen from the front
+	 */
+	public boolean isFacing(ViewTransform transform)
+	{
+		Point3D eye = transform.getEye();
 		
-		double zSum = 0;
+		return isFacing(eye.getX(), eye.getY(), eye.getZ());
+	}
+	
+	/** Method returning projection of this polygon on to given plane
+	 * 
+	 * @param view	The View that this polygon is being looked at from
+	 * @return the Projection object resulting from the projection of instance on to given plane 
+	 */
+	public PolygonProjection getProjection(View view)
+	{
+		return getProjection(view.getTransform());
+	}
+	
+	/** Method returning projection of this polygon through the given view transformation
+	 * 
+	 * @param transform	The ViewTransform of the View that this polygon is being looked at from
+	 * @return the Projection object resulting from the projection of instance on to the view plane of the transformation
+	 */
+	public PolygonProjection getProjection(ViewTransform transform)
+	{
+		double[] cameraCoords = new double[3*points.length];
+		Transform3D camera = transform.getCameraTransform();
 		
 		for(int i = 0; i < points.length; i ++)
 		{
-			/* Deals with polygons behind view plane */
-			if(rotatedPoints[i].getZ() < -5)
-			{
-				return new PolygonProjection(new Point2D[0]);
-			}
-			
-			/* Projection perspective calculations */
-			double perspectiveMod = view.getFocalLength()/(rotatedPoints[i].getZ() + view.getFocalLength());
-			projectedPoints[i] = new Point2D(perspectiveMod*rotatedPoints[i].getX() + view.getWidth()/2, perspectiveMod*rotatedPoints[i].getY() + view.getHeight()/2);
-			
-			/* Projection incline calculations */
-			if(rotatedPoints[i].getZ() > maxPoint.getZ())
-			{
-				maxPoint = rotatedPoints[i];
-			}
-			if(rotatedPoints[i].getZ() <= minPoint.getZ())
-			{
-				minPoint = rotatedPoints[i];
-			}
+			double x = points[i].getX();
+			double y = points[i].getY();
+			double z = points[i].getZ();
 			
-			/* Projection priority calculations */
-			zSum += rotatedPoints[i].getZ();
+			cameraCoords[3*i] = camera.transformX(x, y, z);
+			cameraCoords[3*i + 1] = camera.transformY(x, y, z);
+			cameraCoords[3*i + 2] = camera.transformZ(x, y, z);
 		}
 		
-		double priority = zSum/rotatedPoints.length;
-		
-		double incline = Math.abs(maxPoint.getZ() - minPoint.getZ())/Math.sqrt(Math.pow(maxPoint.getX() - minPoint.getX(), 2) + Math.pow(maxPoint.getY() - minPoint.getY(), 2)); 
+		if(transform.isLit())
+		{
+			double[] normal = getNormal();
+			
+			return transform.project(cameraCoords, null, 0, points.length, color, transform.getIntensity(normal[0], normal[1], normal[2]));
+		}
 		
-		return ((new PolygonProjection(projectedPoints, priority, incline, color)).rotate(new Point2D(view.getWidth()/2, view.getHeight()/2), view.getTurnAngle()));
+		return transform.project(cameraCoords, null, 0, points.length, color);
 	}
 	
 	/**
@@ -216,4 +277,40 @@ public class Polygon3D
 	{
 		return points;
 	}
+	
+	/** Returns the unit normal of this polygon, computed by Newell's method the first time it is requested after the points of this polygon change
+	 * 
+	 * @return the (x, y, z) components of the normal, pointing towards the side from which the points of this polygon appear counterclockwise
+	 */
+	public double[] getNormal()
+	{
+		if(normal == null)
+		{
+			double xNormal = 0, yNormal = 0, zNormal = 0;
+			
+			for(int i = 0; i < points.length; i ++)
+			{
+				Point3D current = points[i];
+				Point3D next = points[(i + 1) % points.length];
+				
+				xNormal += (current.getY() - next.getY())*(current.getZ() + next.getZ());
+				yNormal += (current.getZ() - next.getZ())*(current.getX() + next.getX());
+				zNormal += (current.getX() - next.getX())*(current.getY() + next.getY());
+			}
+			
+			double length = Math.sqrt(xNormal*xNormal + yNormal*yNormal + zNormal*zNormal);
+			
+			normal = length == 0 ? new double[3] : new double[] {xNormal/length, yNormal/length, zNormal/length};
+		}
+		
+		return normal;
+	}
+	
+	/**
+	 * @return the color this polygon is projected with
+	 */
+	public Color getColor()
+	{
+		return color;
+	}
 }
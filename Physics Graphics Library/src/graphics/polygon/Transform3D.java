@@ -0,0 +1,333 @@
+package graphics.polygon;
+
+/** A class representing an affine transformation of 3D space, stored as the top three rows of a 4x4 matrix
+ * @author Benjamin Cohen-Wang
+ */
+public class Transform3D
+{
+	/** The first row of the linear part of this transformation */
+	private double m00, m01, m02;
+	
+	/** The second row of the linear part of this transformation */
+	private double m10, m11, m12;
+	
+	/** The third row of the linear part of this transformation */
+	private double m20, m21, m22;
+	
+	/** The translational part of this transformation */
+	private double m03, m13, m23;
+	
+	/** Default constructor, initializes this instance to the identity transformation
+	 * 
+	 */
+	public Transform3D()
+	{
+		this(1, 0, 0, 0,
+			 0, 1, 0, 0,
+			 0, 0, 1, 0);
+	}
+	
+	/** Parameterized constructor, initializes the rows of the matrix of this transformation to the given values
+	 * 
+	 * @param m00	the x-coefficient of the transformed x-coordinate
+	 * @param m01	the y-coefficient of the transformed x-coordinate
+	 * @param m02	the z-coefficient of the transformed x-coordinate
+	 * @param m03	the constant term of the transformed x-coordinate
+	 * @param m10	the x-coefficient of the transformed y-coordinate
+	 * @param m11	the y-coefficient of the transformed y-coordinate
+	 * @param m12	the z-coefficient of the transformed y-coordinate
+	 * @param m13	the constant term of the transformed y-coordinate
+	 * @param m20	the x-coefficient of the transformed z-coordinate
+	 * @param m21	the y-coefficient of the transformed z-coordinate
+	 * @param m22	the z-coefficient of the transformed z-coordinate
+	 * @param m23	the constant term of the transformed z-coordinate
+	 */
+	public Transform3D(double m00, double m01, double m02, double m03,
+					   double m10, double m11, double m12, double m13,
+					   double m20, double m21, double m22, double m23)
+	{
+		this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+	}
+	
+	/** Copy constructor, initializes this instance to the same transformation as the given transformation
+	 * 
+	 * @param other	the transformation copied
+	 */
+	public Transform3D(Transform3D other)
+	{
+		this(other.m00, other.m01, other.m02, other.m03,
+			 other.m10, other.m11, other.m12, other.m13,
+			 other.m20, other.m21, other.m22, other.m23);
+	}
+	
+	/** Returns the transformation applying this instance followed by a translation
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 * @return a version of this instance followed by a translation by given values for x, y, and z
+	 */
+	public Transform3D translate(double x, double y, double z)
+	{
+		Transform3D translated = new Transform3D(this);
+		translated.translateInPlace(x, y, z);
+		
+		return translated;
+	}
+	
+	/** Returns the transformation applying this instance followed by a scaling along each axis
+	 * 
+	 * @param x	the factor by which x-coordinates are scaled
+	 * @param y	the factor by which y-coordinates are scaled
+	 * @param z	the factor by which z-coordinates are scaled
+	 * @return a version of this instance followed by a scaling by given values for x, y, and z
+	 */
+	public Transform3D scale(double x, double y, double z)
+	{
+		Transform3D scaled = new Transform3D(this);
+		scaled.scaleInPlace(x, y, z);
+		
+		return scaled;
+	}
+	
+	/** Returns the transformation applying this instance followed by a rotation about the x-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance followed by a rotation of the given angle about the x-axis
+	 */
+	public Transform3D rotAboutX(double turnAngle)
+	{
+		Transform3D rotated = new Transform3D(this);
+		rotated.rotAboutXInPlace(turnAngle);
+		
+		return rotated;
+	}
+	
+	/** Returns the transformation applying this instance followed by a rotation about the y-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance followed by a rotation of the given angle about the y-axis
+	 */
+	public Transform3D rotAboutY(double turnAngle)
+	{
+		Transform3D rotated = new Transform3D(this);
+		rotated.rotAboutYInPlace(turnAngle);
+		
+		return rotated;
+	}
+	
+	/** Returns the transformation applying this instance followed by a rotation about the z-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance followed by a rotation of the given angle about the z-axis
+	 */
+	public Transform3D rotAboutZ(double turnAngle)
+	{
+		Transform3D rotated = new Transform3D(this);
+		rotated.rotAboutZInPlace(turnAngle);
+		
+		return rotated;
+	}
+	
+	/** Follows this transformation in place by a translation
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 */
+	public void translateInPlace(double x, double y, double z)
+	{
+		m03 += x;
+		m13 += y;
+		m23 += z;
+	}
+	
+	/** Follows this transformation in place by a scaling along each axis
+	 * 
+	 * @param x	the factor by which x-coordinates are scaled
+	 * @param y	the factor by which y-coordinates are scaled
+	 * @param z	the factor by which z-coordinates are scaled
+	 */
+	public void scaleInPlace(double x, double y, double z)
+	{
+		m00 *= x; m01 *= x; m02 *= x; m03 *= x;
+		m10 *= y; m11 *= y; m12 *= y; m13 *= y;
+		m20 *= z; m21 *= z; m22 *= z; m23 *= z;
+	}
+	
+	/** Follows this transformation in place by a rotation about the x-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutXInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
+		
+		double r10 = m10*cos - m20*sin, r11 = m11*cos - m21*sin, r12 = m12*cos - m22*sin, r13 = m13*cos - m23*sin;
+		m20 = m10*sin + m20*cos; m21 = m11*sin + m21*cos; m22 = m12*sin + m22*cos; m23 = m13*sin + m23*cos;
+		m10 = r10; m11 = r11; m12 = r12; m13 = r13;
+	}
+	
+	/** Follows this transformation in place by a rotation about the y-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutYInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
+		
+		double r00 = m20*sin + m00*cos, r01 = m21*sin + m01*cos, r02 = m22*sin + m02*cos, r03 = m23*sin + m03*cos;
+		m20 = m20*cos - m00*sin; m21 = m21*cos - m01*sin; m22 = m22*cos - m02*sin; m23 = m23*cos - m03*sin;
+		m00 = r00; m01 = r01; m02 = r02; m03 = r03;
+	}
+	
+	/** Follows this transformation in place by a rotation about the z-axis through the given angle
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutZInPlace(double turnAngle)
+	{
+		double cos = Math.cos(turnAngle);
+		double sin = Math.sin(turnAngle);
+		
+		double r00 = m00*cos - m10*sin, r01 = m01*cos - m11*sin, r02 = m02*cos - m12*sin, r03 = m03*cos - m13*sin;
+		m10 = m00*sin + m10*cos; m11 = m01*sin + m11*cos; m12 = m02*sin + m12*cos; m13 = m03*sin + m13*cos;
+		m00 = r00; m01 = r01; m02 = r02; m03 = r03;
+	}
+	
+	/** Returns the transformation applying the given transformation followed by this instance
+	 * 
+	 * @param other	the transformation applied first
+	 * @return the composition of this instance with the given transformation
+	 */
+	public Transform3D multiply(Transform3D other)
+	{
+		return new Transform3D(
+				m00*other.m00 + m01*other.m10 + m02*other.m20,
+				m00*other.m01 + m01*other.m11 + m02*other.m21,
+				m00*other.m02 + m01*other.m12 + m02*other.m22,
+				m00*other.m03 + m01*other.m13 + m02*other.m23 + m03,
+				m10*other.m00 + m11*other.m10 + m12*other.m20,
+				m10*other.m01 + m11*other.m11 + m12*other.m21,
+				m10*other.m02 + m11*other.m12 + m12*other.m22,
+				m10*other.m03 + m11*other.m13 + m12*other.m23 + m13,
+				m20*other.m00 + m21*other.m10 + m22*other.m20,
+				m20*other.m01 + m21*other.m11 + m22*other.m21,
+				m20*other.m02 + m21*other.m12 + m22*other.m22,
+				m20*other.m03 + m21*other.m13 + m22*other.m23 + m23);
+	}
+	
+	/** Returns the inverse of this transformation
+	 * 
+	 * @return the transformation undoing this instance
+	 * @throws IllegalStateException if this transformation is not invertible
+	 */
+	public Transform3D inverse()
+	{
+		double det = determinant();
+		
+		if(det == 0)
+		{
+			throw new IllegalStateException("Transformation is not invertible");
+		}
+		
+		double i00 = (m11*m22 - m12*m21)/det, i01 = (m02*m21 - m01*m22)/det, i02 = (m01*m12 - m02*m11)/det;
+		double i10 = (m12*m20 - m10*m22)/det, i11 = (m00*m22 - m02*m20)/det, i12 = (m02*m10 - m00*m12)/det;
+		double i20 = (m10*m21 - m11*m20)/det, i21 = (m01*m20 - m00*m21)/det, i22 = (m00*m11 - m01*m10)/det;
+		
+		return new Transform3D(i00, i01, i02, -(i00*m03 + i01*m13 + i02*m23),
+							   i10, i11, i12, -(i10*m03 + i11*m13 + i12*m23),
+							   i20, i21, i22, -(i20*m03 + i21*m13 + i22*m23));
+	}
+	
+	/**
+	 * @return the determinant of the linear part of this transformation, negative if it reverses the orientation of space
+	 */
+	public double determinant()
+	{
+		return m00*(m11*m22 - m12*m21) - m01*(m10*m22 - m12*m20) + m02*(m10*m21 - m11*m20);
+	}
+	
+	/**
+	 * @return the greatest factor by which this transformation stretches any distance
+	 */
+	public double getMaxScale()
+	{
+		double xScale = m00*m00 + m10*m10 + m20*m20;
+		double yScale = m01*m01 + m11*m11 + m21*m21;
+		double zScale = m02*m02 + m12*m12 + m22*m22;
+		
+		return Math.sqrt(Math.max(xScale, Math.max(yScale, zScale)));
+	}
+	
+	/** Returns the given point transformed by this instance
+	 * 
+	 * @param point	the point transformed
+	 * @return the image of the given point under this transformation
+	 */
+	public Point3D apply(Point3D point)
+	{
+		double x = point.getX();
+		double y = point.getY();
+		double z = point.getZ();
+		
+		return new Point3D(transformX(x, y, z), transformY(x, y, z), transformZ(x, y, z));
+	}
+	
+	/** Transforms the given number of packed (x, y, z) coordinate triples from the source array into the destination array
+	 * 
+	 * @param src	the array of packed coordinates transformed
+	 * @param dst	the array the transformed coordinates are written to, may be the source array
+	 * @param count	the number of points transformed
+	 */
+	public void transform(double[] src, double[] dst, int count)
+	{
+		for(int i = 0; i < 3*count; i += 3)
+		{
+			double x = src[i];
+			double y = src[i + 1];
+			double z = src[i + 2];
+			
+			dst[i] = m00*x + m01*y + m02*z + m03;
+			dst[i + 1] = m10*x + m11*y + m12*z + m13;
+			dst[i + 2] = m20*x + m21*y + m22*z + m23;
+		}
+	}
+	
+	/**
+	 * @param x	the x-coordinate of the point transformed
+	 * @param y	the y-coordinate of the point transformed
+	 * @param z	the z-coordinate of the point transformed
+	 * @return the x-coordinate of the given point under this transformation
+	 */
+	public double transformX(double x, double y, double z)
+	{
+		return m00*x + m01*y + m02*z + m03;
+	}
+	
+	/**
+	 * @param x	the x-coordinate of the point transformed
+	 * @param y	the y-coordinate of the point transformed
+	 * @param z	the z-coordinate of the point transformed
+	 * @return the y-coordinate of the given point under this transformation
+	 */
+	public double transformY(double x, double y, double z)
+	{
+		return m10*x + m11*y + m12*z + m13;
+	}
+	
+	/**
+	 * @param x	the x-coordinate of the point transformed
+	 * @param y	the y-coordinate of the point transformed
+	 * @param z	the z-coordinate of the point transformed
+	 * @return the z-coordinate of the given point under this transformation
+	 */
+	public double transformZ(double x, double y, double z)
+	{
+		return m20*x + m21*y + m22*z + m23;
+	}
+}
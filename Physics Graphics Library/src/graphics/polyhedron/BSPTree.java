@@ -0,0 +1,544 @@
+package graphics.polyhedron;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import graphics.polygon.*;
+import graphics.projection.PolygonProjection;
+import graphics.projection.PolyhedronProjection;
+import graphics.projection.View;
+import graphics.projection.ViewTransform;
+
+/** A class representing a binary space partitioning tree over static polygons, built once and walked for every view to find an exact
+ * farthest to nearest drawing order without sorting; polygons crossing the plane of a node are split in two when the tree is built
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class BSPTree
+{
+	/** The distance from a plane within which a point is considered to lie on it */
+	private static final double EPSILON = 1e-9;
+	
+	/** The greatest number of polygons considered as the splitting polygon of a node */
+	private static final int SPLITTER_CANDIDATES = 16;
+	
+	/** The polygons of this tree after splitting, the polygons of each node stored together */
+	private Mesh3D mesh;
+	
+	/** The packed (a, b, c, d) coefficients of the plane of each node, a point lying in front of it where ax + by + cz + d > 0 */
+	private double[] planes;
+	
+	/** The index of the node in front of the plane of each node, or -1 if there is none */
+	private int[] frontNodes;
+	
+	/** The index of the node behind the plane of each node, or -1 if there is none */
+	private int[] backNodes;
+	
+	/** The index of the first face of the mesh lying in the plane of each node, followed by the number of faces of the mesh */
+	private int[] nodeFaceStarts;
+	
+	/** The index of the root node, or -1 if the tree is empty */
+	private int root;
+	
+	/** The camera coordinates of the vertices of the mesh, reused between projections */
+	private double[] cameraVertices;
+	
+	/** The faces of the mesh in drawing order, reused between projections */
+	private int[] faceOrder;
+	
+	/** The stack of nodes left to walk, reused between projections */
+	private int[] walkStack;
+	
+	/** The brightness of each face of the mesh under the lights of the view, reused between projections */
+	private double[] faceIntensities;
+	
+	/** Parameterized constructor, builds a tree over the polygons of the given polyhedron
+	 * 
+	 * @param polyhedron	the polyhedron whose polygons are partitioned
+	 */
+	public BSPTree(Polyhedron3D polyhedron)
+	{
+		this(polyhedron.getPolys());
+	}
+	
+	/** Parameterized constructor, builds a tree over the given polygons
+	 * 
+	 * @param polygons	the polygons partitioned
+	 */
+	public BSPTree(Polygon3D[] polygons)
+	{
+		ArrayList<Node> nodes = new ArrayList<Node>();
+		root = build(new ArrayList<Polygon3D>(Arrays.asList(polygons)), nodes);
+		
+		planes = new double[4*nodes.size()];
+		frontNodes = new int[nodes.size()];
+		backNodes = new int[nodes.size()];
+		nodeFaceStarts = new int[nodes.size() + 1];
+		
+		ArrayList<Polygon3D> faces = new ArrayList<Polygon3D>();
+		
+		for(int i = 0; i < nodes.size(); i ++)
+		{
+			Node node = nodes.get(i);
+			
+			System.arraycopy(node.plane, 0, planes, 4*i, 4);
+			frontNodes[i] = node.front;
+			backNodes[i] = node.back;
+			nodeFaceStarts[i] = faces.size();
+			faces.addAll(node.polygons);
+		}
+		nodeFaceStarts[nodes.size()] = faces.size();
+		
+		mesh = Mesh3D.fromPolygons(faces.toArray(new Polygon3D[faces.size()]));
+		faceOrder = new int[faces.size()];
+		
+		/* Walking a node pops one entry and pushes at most three */
+		walkStack = new int[2*nodes.size() + 1];
+	}
+	
+	/** Method returning projection of the polygons of this tree on to given plane, ordered from farthest to nearest by a walk of the tree
+	 * 
+	 * @param view	The View that the polygons are being looked at from
+	 * @return the Projection object resulting from the projection of the polygons, drawn in the order of its projections without sorting
+	 */
+	public PolyhedronProjection getProjection(View view)
+	{
+		ViewTransform transform = view.getTransform();
+		Point3D eye = transform.getEye();
+		
+		int faceCount = walk(eye.getX(), eye.getY(), eye.getZ());
+		
+		int vertexCount = mesh.getVertexCount();
+		if(cameraVertices == null)
+		{
+			cameraVertices = new double[3*vertexCount];
+		}
+		transform.getCameraTransform().transform(mesh.getVertices(), cameraVertices, vertexCount);
+		
+		int[] faceStarts = mesh.getFaceStarts();
+		int[] faceIndices = mesh.getFaceIndices();
+		Color[] colors = mesh.getColors();
+		
+		boolean lit = transform.isLit();
+		
+		if(lit)
+		{
+			if(faceIntensities == null)
+			{
+				faceIntensities = new double[mesh.getFaceCount()];
+			}
+			
+			transform.light(mesh.getNormals(), mesh.getFaceCount(), null, faceIntensities);
+		}
+		
+		PolygonProjection[] projections = new PolygonProjection[faceCount];
+		int projectionCount = 0;
+		
+		for(int i = 0; i < faceCount; i ++)
+		{
+			int face = faceOrder[i];
+			PolygonProjection projection = transform.project(cameraVertices, faceIndices, faceStarts[face], faceStarts[face + 1], colors[face],
+					lit ? faceIntensities[face] : Double.NaN);
+			
+			/* Skips polygons clipped away entirely */
+			if(projection.getPointCount() > 0)
+			{
+				projections[projectionCount ++] = projection;
+			}
+		}
+		
+		return new PolyhedronProjection(Arrays.copyOf(projections, projectionCount), true);
+	}
+	
+	/** Writes the faces of the tree to the face order, farthest from the given eye first, walking the tree with an explicit stack so that
+	 * the depth of the tree is not bounded by the depth of the call stack
+	 * 
+	 * @param x	the x-coordinate of the eye
+	 * @param y	the y-coordinate of the eye
+	 * @param z	the z-coordinate of the eye
+	 * @return the number of faces written to the face order
+	 */
+	private int walk(double x, double y, double z)
+	{
+		int count = 0;
+		int size = 0;
+		
+		if(root != -1)
+		{
+			walkStack[size ++] = root;
+		}
+		
+		/* A node is pushed as its index to be walked, and as the complement of its index once its far side has been pushed above it */
+		while(size > 0)
+		{
+			int node = walkStack[-- size];
+			
+			if(node < 0)
+			{
+				for(int face = nodeFaceStarts[~node]; face < nodeFaceStarts[~node + 1]; face ++)
+				{
+					faceOrder[count ++] = face;
+				}
+				
+				continue;
+			}
+			
+			boolean inFront = planes[4*node]*x + planes[4*node + 1]*y + planes[4*node + 2]*z + planes[4*node + 3] > 0;
+			
+			int far = inFront ? backNodes[node] : frontNodes[node];
+			int near = inFront ? frontNodes[node] : backNodes[node];
+			
+			if(near != -1)
+			{
+				walkStack[size ++] = near;
+			}
+			walkStack[size ++] = ~node;
+			if(far != -1)
+			{
+				walkStack[size ++] = far;
+			}
+		}
+		
+		return count;
+	}
+	
+	/** Builds the tree partitioning the given polygons, partitioning the polygons of each node in turn from an explicit stack so that the
+	 * depth of the tree is not bounded by the depth of the call stack
+	 * 
+	 * @param polygons	the polygons partitioned
+	 * @param nodes	the list the nodes of the tree are added to
+	 * @return the index of the root of the tree, or -1 if there are no polygons
+	 */
+	private static int build(ArrayList<Polygon3D> polygons, ArrayList<Node> nodes)
+	{
+		if(polygons.isEmpty())
+		{
+			return -1;
+		}
+		
+		ArrayList<Integer> pending = new ArrayList<Integer>();
+		pending.add(addNode(polygons, nodes));
+		
+		while(!pending.isEmpty())
+		{
+			Node node = nodes.get(pending.remove(pending.size() - 1));
+			ArrayList<Polygon3D> front = new ArrayList<Polygon3D>();
+			ArrayList<Polygon3D> back = new ArrayList<Polygon3D>();
+			
+			partition(node, front, back);
+			
+			if(!front.isEmpty())
+			{
+				node.front = addNode(front, nodes);
+				pending.add(node.front);
+			}
+			if(!back.isEmpty())
+			{
+				node.back = addNode(back, nodes);
+				pending.add(node.back);
+			}
+		}
+		
+		return 0;
+	}
+	
+	/** Adds a node to be partitioned over the given polygons to the given list
+	 * 
+	 * @param polygons	the polygons of the node
+	 * @param nodes	the list of nodes added to
+	 * @return the index of the added node
+	 */
+	private static int addNode(ArrayList<Polygon3D> polygons, ArrayList<Node> nodes)
+	{
+		Node node = new Node();
+		node.polygons = polygons;
+		nodes.add(node);
+		
+		return nodes.size() - 1;
+	}
+	
+	/** Partitions the polygons of the given node, choosing as splitter the candidate plane which splits the fewest polygons and best
+	 * balances the two sides, and keeping in the node only the polygons lying in that plane; the candidates are the planes of some of the
+	 * polygons and a plane through the median of their centers, which keeps sets in which every polygon lies behind the others, such as
+	 * convex meshes, from building a tree as deep as they have polygons
+	 * 
+	 * @param node	the node partitioned
+	 * @param front	the list the polygons in front of the splitter are added to
+	 * @param back	the list the polygons behind the splitter are added to
+	 */
+	private static void partition(Node node, ArrayList<Polygon3D> front, ArrayList<Polygon3D> back)
+	{
+		ArrayList<Polygon3D> polygons = node.polygons;
+		
+		double[] plane = null;
+		int bestScore = Integer.MAX_VALUE;
+		int step = Math.max(1, polygons.size()/SPLITTER_CANDIDATES);
+		
+		for(int i = 0; i < polygons.size(); i += step)
+		{
+			double[] candidate = getPlane(polygons.get(i));
+			
+			if(candidate == null)
+			{
+				continue;
+			}
+			
+			int score = score(polygons, candidate);
+			if(score < bestScore)
+			{
+				bestScore = score;
+				plane = candidate;
+			}
+		}
+		
+		double[] median = getMedianPlane(polygons);
+		if(median != null && score(polygons, median) < bestScore)
+		{
+			plane = median;
+		}
+		
+		/* The polygons sampled may all have been degenerate although others are not */
+		for(int i = 0; plane == null && i < polygons.size(); i ++)
+		{
+			plane = getPlane(polygons.get(i));
+		}
+		
+		node.polygons = new ArrayList<Polygon3D>();
+		
+		if(plane == null)
+		{
+			/* Every polygon is degenerate and has no plane, so they are drawn in any order */
+			node.plane = new double[4];
+			node.polygons.addAll(polygons);
+			return;
+		}
+		
+		node.plane = plane;
+		
+		for(Polygon3D polygon : polygons)
+		{
+			switch(classify(polygon, plane))
+			{
+				case 0: node.polygons.add(polygon); break;
+				case 1: front.add(polygon); break;
+				case -1: back.add(polygon); break;
+				default: split(polygon, plane, front, back);
+			}
+		}
+	}
+	
+	/** Returns the score of the given plane as the splitter of the given polygons, lower being better
+	 * 
+	 * @param polygons	the polygons partitioned
+	 * @param plane	the (a, b, c, d) coefficients of the plane
+	 * @return a weighted sum of the number of polygons split and the imbalance of the two sides, penalized if a side is left empty, or
+	 * Integer.MAX_VALUE if every polygon lies on the same side so that the plane would not partition them at all
+	 */
+	private static int score(ArrayList<Polygon3D> polygons, double[] plane)
+	{
+		int front = 0, back = 0, splits = 0;
+		for(Polygon3D polygon : polygons)
+		{
+			switch(classify(polygon, plane))
+			{
+				case 1: front ++; break;
+				case -1: back ++; break;
+				case 2: splits ++; break;
+			}
+		}
+		
+		if(front == polygons.size() || back == polygons.size())
+		{
+			return Integer.MAX_VALUE;
+		}
+		
+		int score = 8*splits + Math.abs(front - back);
+		
+		/* A splitter leaving a side empty removes only the polygons in its plane from the subtree */
+		if(front + splits == 0 || back + splits == 0)
+		{
+			score += polygons.size();
+		}
+		
+		return score;
+	}
+	
+	/** Returns the plane perpendicular to the axis along which the centers of the given polygons spread farthest, through their median
+	 * 
+	 * @param polygons	the polygons
+	 * @return the (a, b, c, d) coefficients of the plane, or null if the centers all coincide
+	 */
+	private static double[] getMedianPlane(ArrayList<Polygon3D> polygons)
+	{
+		double[][] centers = new double[3][polygons.size()];
+		
+		for(int i = 0; i < polygons.size(); i ++)
+		{
+			Point3D[] points = polygons.get(i).getPoints();
+			
+			for(Point3D point : points)
+			{
+				centers[0][i] += point.getX()/points.length;
+				centers[1][i] += point.getY()/points.length;
+				centers[2][i] += point.getZ()/points.length;
+			}
+		}
+		
+		int axis = -1;
+		double bestSpread = 0;
+		
+		for(int j = 0; j < 3; j ++)
+		{
+			Arrays.sort(centers[j]);
+			
+			double spread = centers[j][centers[j].length - 1] - centers[j][0];
+			if(spread > bestSpread)
+			{
+				bestSpread = spread;
+				axis = j;
+			}
+		}
+		
+		if(axis == -1)
+		{
+			return null;
+		}
+		
+		double[] plane = new double[4];
+		plane[axis] = 1;
+		plane[3] = -centers[axis][centers[axis].length/2];
+		
+		return plane;
+	}
+	
+	/** Returns the plane of the given polygon
+	 * 
+	 * @param polygon	the polygon whose plane is returned
+	 * @return the (a, b, c, d) coefficients of the plane, in front of which the points of the polygon appear counterclockwise, or null if the polygon is degenerate
+	 */
+	private static double[] getPlane(Polygon3D polygon)
+	{
+		double[] normal = polygon.getNormal();
+		
+		if(normal[0] == 0 && normal[1] == 0 && normal[2] == 0)
+		{
+			return null;
+		}
+		
+		Point3D point = polygon.getPoints()[0];
+		
+		return new double[] {normal[0], normal[1], normal[2], -(normal[0]*point.getX() + normal[1]*point.getY() + normal[2]*point.getZ())};
+	}
+	
+	/** Returns the signed distance of the given point from the given plane
+	 * 
+	 * @param point	the point
+	 * @param plane	the (a, b, c, d) coefficients of the plane, (a, b, c) being a unit normal
+	 * @return the distance of the point from the plane, positive in front of it
+	 */
+	private static double distance(Point3D point, double[] plane)
+	{
+		return plane[0]*point.getX() + plane[1]*point.getY() + plane[2]*point.getZ() + plane[3];
+	}
+	
+	/** Returns the side of the given plane on which the given polygon lies
+	 * 
+	 * @param polygon	the polygon classified
+	 * @param plane	the (a, b, c, d) coefficients of the plane
+	 * @return 0 if the polygon lies in the plane, 1 if in front of it, -1 if behind it, or 2 if it crosses it
+	 */
+	private static int classify(Polygon3D polygon, double[] plane)
+	{
+		boolean front = false, back = false;
+		
+		for(Point3D point : polygon.getPoints())
+		{
+			double distance = distance(point, plane);
+			
+			front |= distance > EPSILON;
+			back |= distance < -EPSILON;
+		}
+		
+		return front ? (back ? 2 : 1) : (back ? -1 : 0);
+	}
+	
+	/** Splits the given polygon along the given plane, adding the part in front of it and the part behind it to the given lists
+	 * 
+	 * @param polygon	the polygon split
+	 * @param plane	the (a, b, c, d) coefficients of the plane
+	 * @param front	the list the part in front of the plane is added to
+	 * @param back	the list the part behind the plane is added to
+	 */
+	private static void split(Polygon3D polygon, double[] plane, ArrayList<Polygon3D> front, ArrayList<Polygon3D> back)
+	{
+		Point3D[] points = polygon.getPoints();
+		ArrayList<Point3D> frontPoints = new ArrayList<Point3D>();
+		ArrayList<Point3D> backPoints = new ArrayList<Point3D>();
+		
+		for(int i = 0; i < points.length; i ++)
+		{
+			Point3D current = points[i];
+			Point3D next = points[(i + 1) % points.length];
+			
+			double currentDist = distance(current, plane);
+			double nextDist = distance(next, plane);
+			
+			if(currentDist >= -EPSILON)
+			{
+				frontPoints.add(current);
+			}
+			if(currentDist <= EPSILON)
+			{
+				backPoints.add(current);
+			}
+			
+			/* Adds the intersection of every edge crossing the plane to both parts */
+			if((currentDist > EPSILON && nextDist < -EPSILON) || (currentDist < -EPSILON && nextDist > EPSILON))
+			{
+				double t = currentDist/(currentDist - nextDist);
+				Point3D intersection = new Point3D(current.getX() + t*(next.getX() - current.getX()),
+												   current.getY() + t*(next.getY() - current.getY()),
+												   current.getZ() + t*(next.getZ() - current.getZ()));
+				
+				frontPoints.add(intersection);
+				backPoints.add(intersection);
+			}
+		}
+		
+		if(frontPoints.size() >= 3)
+		{
+			front.add(new Polygon3D(polygon.getColor(), frontPoints.toArray(new Point3D[frontPoints.size()])));
+		}
+		if(backPoints.size() >= 3)
+		{
+			back.add(new Polygon3D(polygon.getColor(), backPoints.toArray(new Point3D[backPoints.size()])));
+		}
+	}
+	
+	/**
+	 * @return the polygons of this tree after splitting, as an indexed mesh
+	 */
+	public Mesh3D getMesh()
+	{
+		return mesh;
+	}
+	
+	/** A class representing a node of the tree while it is being built
+	 * 
+	 */
+	private static class Node
+	{
+		/** The (a, b, c, d) coefficients of the plane of this node */
+		private double[] plane;
+		
+		/** The polygons lying in the plane of this node, or every polygon of the node before it is partitioned */
+		private ArrayList<Polygon3D> polygons;
+		
+		/** The index of the node in front of the plane of this node, or -1 if there is none */
+		private int front = -1;
+		
+		/** The index of the node behind the plane of this node, or -1 if there is none */
+		private int back = -1;
+	}
+}
@@ -0,0 +1,445 @@
+package graphics.polyhedron;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import graphics.polygon.*;
+
+/** A class representing an indexed polygon mesh in 3D space, in which faces refer to shared vertices stored in a single packed array
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class Mesh3D
+{
+	/** The packed (x, y, z) coordinates of the vertices of this mesh */
+	private double[] vertices;
+	
+	/** The number of vertices of this mesh */
+	private int vertexCount;
+	
+	/** The offsets in to the face index array at which each face starts, followed by the length of the face index array */
+	private int[] faceStarts;
+	
+	/** The vertex indices of every face of this mesh, stored one face after another */
+	private int[] faceIndices;
+	
+	/** The colors the faces of this mesh are projected with */
+	private Color[] colors;
+	
+	/** The packed (x, y, z) unit normals of the faces of this mesh, computed when first requested */
+	private double[] normals;
+	
+	/** The minimum and maximum coordinates of the vertices of this mesh, computed when first requested */
+	private double[] boundingBox;
+	
+	/** The center and radius of a sphere containing the vertices of this mesh, computed when first requested */
+	private double[] boundingSphere;
+	
+	/** Parameterized constructor, initializes this mesh to the given vertex and face arrays, which are used without being copied
+	 * 
+	 * @param vertices	the packed (x, y, z) coordinates of the vertices of this mesh
+	 * @param faceStarts	the offsets in to the face index array at which each face starts, followed by the length of the face index array
+	 * @param faceIndices	the vertex indices of every face of this mesh, stored one face after another
+	 * @param colors	the colors of the faces of this mesh
+	 */
+	public Mesh3D(double[] vertices, int[] faceStarts, int[] faceIndices, Color[] colors)
+	{
+		if(vertices.length % 3 != 0)
+		{
+			throw new IllegalArgumentException("Vertex array length " + vertices.length + " is not a multiple of 3");
+		}
+		if(colors.length != faceStarts.length - 1)
+		{
+			throw new IllegalArgumentException("Expected " + (faceStarts.length - 1) + " face colors but got " + colors.length);
+		}
+		
+		this.vertices = vertices;
+		this.vertexCount = vertices.length/3;
+		this.faceStarts = faceStarts;
+		this.faceIndices = faceIndices;
+		this.colors = colors;
+	}
+	
+	/** Returns a mesh of the given polygons, in which points with equal coordinates are merged in to a single shared vertex
+	 * 
+	 * @param polygons	the polygons the mesh is built from
+	 * @return a mesh with the faces of the given polygons
+	 */
+	public static Mesh3D fromPolygons(Polygon3D[] polygons)
+	{
+		int indexCount = 0;
+		for(Polygon3D polygon : polygons)
+		{
+			indexCount += polygon.getPoints().length;
+		}
+		
+		HashMap<VertexKey, Integer> vertexIndices = new HashMap<VertexKey, Integer>();
+		double[] vertices = new double[3*indexCount];
+		int[] faceStarts = new int[polygons.length + 1];
+		int[] faceIndices = new int[indexCount];
+		Color[] colors = new Color[polygons.length];
+		
+		int vertexCount = 0;
+		int index = 0;
+		
+		for(int i = 0; i < polygons.length; i ++)
+		{
+			faceStarts[i] = index;
+			colors[i] = polygons[i].getColor();
+			
+			for(Point3D point : polygons[i].getPoints())
+			{
+				VertexKey key = new VertexKey(point.getX(), point.getY(), point.getZ());
+				Integer vertex = vertexIndices.get(key);
+				
+				if(vertex == null)
+				{
+					vertex = vertexCount;
+					vertexIndices.put(key, vertex);
+					vertices[3*vertexCount] = point.getX();
+					vertices[3*vertexCount + 1] = point.getY();
+					vertices[3*vertexCount + 2] = point.getZ();
+					vertexCount ++;
+				}
+				
+				faceIndices[index ++] = vertex;
+			}
+		}
+		faceStarts[polygons.length] = index;
+		
+		double[] packedVertices = new double[3*vertexCount];
+		System.arraycopy(vertices, 0, packedVertices, 0, packedVertices.length);
+		
+		return new Mesh3D(packedVertices, faceStarts, faceIndices, colors);
+	}
+	
+	/** Returns a version of this mesh whose vertices are transformed by the given transformation, sharing the faces of this mesh
+	 * 
+	 * @param transform	the transformation applied to the vertices
+	 * @return a transformed instance of this mesh
+	 */
+	public Mesh3D transform(Transform3D transform)
+	{
+		double[] transformed = new double[vertices.length];
+		transform.transform(vertices, transformed, vertexCount);
+		
+		return new Mesh3D(transformed, faceStarts, faceIndices, colors);
+	}
+	
+	/** Returns a simplified version of this mesh by vertex clustering, merging the vertices lying in each cube of a grid of the given size
+	 * in to their average and discarding the faces left with fewer than three distinct vertices
+	 * 
+	 * @param cellSize	the width of the cubes of the grid, and so the size of the details lost
+	 * @return a mesh with at most as many vertices and faces as this mesh, no vertex of which lies farther than the diagonal of a cube from the vertices it replaces
+	 * @throws IllegalArgumentException if the width of the cubes is not positive
+	 */
+	public Mesh3D simplify(double cellSize)
+	{
+		if(!(cellSize > 0))
+		{
+			throw new IllegalArgumentException("Cell size must be positive");
+		}
+		
+		HashMap<VertexKey, Integer> clusterIndices = new HashMap<VertexKey, Integer>();
+		int[] clusters = new int[vertexCount];
+		int[] clusterSizes = new int[vertexCount];
+		double[] clusterSums = new double[3*vertexCount];
+		int clusterCount = 0;
+		
+		for(int i = 0; i < vertexCount; i ++)
+		{
+			VertexKey key = new VertexKey(Math.floor(vertices[3*i]/cellSize), Math.floor(vertices[3*i + 1]/cellSize), Math.floor(vertices[3*i + 2]/cellSize));
+			Integer cluster = clusterIndices.get(key);
+			
+			if(cluster == null)
+			{
+				cluster = clusterCount ++;
+				clusterIndices.put(key, cluster);
+			}
+			
+			clusters[i] = cluster;
+			clusterSizes[cluster] ++;
+			clusterSums[3*cluster] += vertices[3*i];
+			clusterSums[3*cluster + 1] += vertices[3*i + 1];
+			clusterSums[3*cluster + 2] += vertices[3*i + 2];
+		}
+		
+		double[] clusteredVertices = new double[3*clusterCount];
+		
+		for(int i = 0; i < 3*clusterCount; i ++)
+		{
+			clusteredVertices[i] = clusterSums[i]/clusterSizes[i/3];
+		}
+		
+		int faceCount = getFaceCount();
+		int[] clusteredStarts = new int[faceCount + 1];
+		int[] clusteredIndices = new int[faceIndices.length];
+		Color[] clusteredColors = new Color[faceCount];
+		int clusteredFaceCount = 0;
+		int index = 0;
+		
+		for(int i = 0; i < faceCount; i ++)
+		{
+			int start = index;
+			
+			/* Merges the successive vertices of the face which fall in to the same cluster */
+			for(int j = faceStarts[i]; j < faceStarts[i + 1]; j ++)
+			{
+				int cluster = clusters[faceIndices[j]];
+				
+				if(index == start || clusteredIndices[index - 1] != cluster)
+				{
+					clusteredIndices[index ++] = cluster;
+				}
+			}
+			while(index - start > 1 && clusteredIndices[index - 1] == clusteredIndices[start])
+			{
+				index --;
+			}
+			
+			if(index - start < 3)
+			{
+				index = start;
+				continue;
+			}
+			
+			clusteredStarts[clusteredFaceCount] = start;
+			clusteredColors[clusteredFaceCount ++] = colors[i];
+		}
+		clusteredStarts[clusteredFaceCount] = index;
+		
+		return new Mesh3D(clusteredVertices, Arrays.copyOf(clusteredStarts, clusteredFaceCount + 1), Arrays.copyOf(clusteredIndices, index),
+				Arrays.copyOf(clusteredColors, clusteredFaceCount));
+	}
+	
+	/** Returns whether the front of the given face, the side from which its vertices appear counterclockwise, faces the given point
+	 * 
+	 * @param face	the index of the face
+	 * @param x	the x-coordinate of the point
+	 * @param y	the y-coordinate of the point
+	 * @param z	the z-coordinate of the point
+	 * @return true if the given point lies in front of the plane of the face
+	 */
+	public boolean isFacing(int face, double x, double y, double z)
+	{
+		double[] normals = getNormals();
+		int vertex = 3*faceIndices[faceStarts[face]];
+		
+		return normals[3*face]*(x - vertices[vertex]) + normals[3*face + 1]*(y - vertices[vertex + 1]) + normals[3*face + 2]*(z - vertices[vertex + 2]) > 0;
+	}
+	
+	/** Returns the unit normals of the faces of this mesh, computed by Newell's method the first time they are requested after the vertices change
+	 * 
+	 * @return the packed (x, y, z) normals of the faces, each pointing towards the side from which the vertices of its face appear counterclockwise
+	 */
+	public double[] getNormals()
+	{
+		if(normals == null)
+		{
+			int faceCount = getFaceCount();
+			double[] normals = new double[3*faceCount];
+			
+			for(int i = 0; i < faceCount; i ++)
+			{
+				double xNormal = 0, yNormal = 0, zNormal = 0;
+				
+				for(int j = faceStarts[i]; j < faceStarts[i + 1]; j ++)
+				{
+					int current = 3*faceIndices[j];
+					int next = 3*faceIndices[j + 1 < faceStarts[i + 1] ? j + 1 : faceStarts[i]];
+					
+					xNormal += (vertices[current + 1] - vertices[next + 1])*(vertices[current + 2] + vertices[next + 2]);
+					yNormal += (vertices[current + 2] - vertices[next + 2])*(vertices[current] + vertices[next]);
+					zNormal += (vertices[current] - vertices[next])*(vertices[current + 1] + vertices[next + 1]);
+				}
+				
+				double length = Math.sqrt(xNormal*xNormal + yNormal*yNormal + zNormal*zNormal);
+				
+				if(length != 0)
+				{
+					normals[3*i] = xNormal/length;
+					normals[3*i + 1] = yNormal/length;
+					normals[3*i + 2] = zNormal/length;
+				}
+			}
+			
+			this.normals = normals;
+		}
+		
+		return normals;
+	}
+	
+	/** Returns the axis-aligned box bounding the vertices of this mesh, computed the first time it is requested after the vertices change
+	 * 
+	 * @return the minimum x, y, and z coordinates of the vertices followed by the maximum x, y, and z coordinates
+	 */
+	public double[] getBoundingBox()
+	{
+		if(boundingBox == null)
+		{
+			double[] boundingBox = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+									Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+			
+			for(int i = 0; i < 3*vertexCount; i += 3)
+			{
+				for(int j = 0; j < 3; j ++)
+				{
+					boundingBox[j] = Math.min(boundingBox[j], vertices[i + j]);
+					boundingBox[j + 3] = Math.max(boundingBox[j + 3], vertices[i + j]);
+				}
+			}
+			
+			this.boundingBox = boundingBox;
+		}
+		
+		return boundingBox;
+	}
+	
+	/** Returns a sphere bounding the vertices of this mesh, centered on its bounding box and computed the first time it is requested after the vertices change
+	 * 
+	 * @return the x, y, and z coordinates of the center of the sphere followed by its radius
+	 */
+	public double[] getBoundingSphere()
+	{
+		if(boundingSphere == null)
+		{
+			double[] box = getBoundingBox();
+			
+			double xCenter = vertexCount == 0 ? 0 : (box[0] + box[3])/2;
+			double yCenter = vertexCount == 0 ? 0 : (box[1] + box[4])/2;
+			double zCenter = vertexCount == 0 ? 0 : (box[2] + box[5])/2;
+			double radiusSquared = 0;
+			
+			for(int i = 0; i < 3*vertexCount; i += 3)
+			{
+				double xDisp = vertices[i] - xCenter;
+				double yDisp = vertices[i + 1] - yCenter;
+				double zDisp = vertices[i + 2] - zCenter;
+				
+				radiusSquared = Math.max(radiusSquared, xDisp*xDisp + yDisp*yDisp + zDisp*zDisp);
+			}
+			
+			boundingSphere = new double[] {xCenter, yCenter, zCenter, Math.sqrt(radiusSquared)};
+		}
+		
+		return boundingSphere;
+	}
+	
+	/** Returns the faces of this mesh as separate polygons
+	 * 
+	 * @return an array containing a Polygon3D for every face of this mesh
+	 */
+	public Polygon3D[] toPolygons()
+	{
+		Polygon3D[] polygons = new Polygon3D[getFaceCount()];
+		
+		for(int i = 0; i < polygons.length; i ++)
+		{
+			Point3D[] points = new Point3D[faceStarts[i + 1] - faceStarts[i]];
+			
+			for(int j = 0; j < points.length; j ++)
+			{
+				int vertex = faceIndices[faceStarts[i] + j];
+				points[j] = new Point3D(vertices[3*vertex], vertices[3*vertex + 1], vertices[3*vertex + 2]);
+			}
+			
+			polygons[i] = new Polygon3D(colors[i], points);
+		}
+		
+		return polygons;
+	}
+	
+	/**
+	 * @return the packed (x, y, z) coordinates of the vertices of this mesh
+	 */
+	public double[] getVertices()
+	{
+		return vertices;
+	}
+	
+	/**
+	 * @return the number of vertices of this mesh
+	 */
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+	
+	/**
+	 * @return the number of faces of this mesh
+	 */
+	public int getFaceCount()
+	{
+		return faceStarts.length - 1;
+	}
+	
+	/**
+	 * @return the offsets in to the face index array at which each face starts, followed by the length of the face index array
+	 */
+	public int[] getFaceStarts()
+	{
+		return faceStarts;
+	}
+	
+	/**
+	 * @return the vertex indices of every face of this mesh, stored one face after another
+	 */
+	public int[] getFaceIndices()
+	{
+		return faceIndices;
+	}
+	
+	/**
+	 * @return the colors of the faces of this mesh
+	 */
+	public Color[] getColors()
+	{
+		return colors;
+	}
+	
+	/** A class representing the coordinates of a vertex, used to identify points shared between polygons
+	 * 
+	 */
+	private static class VertexKey
+	{
+		/** The coordinates of the vertex */
+		private final double x, y, z;
+		
+		/** Parameterized constructor, initializes the coordinates of this key
+		 * 
+		 * @param x	the x-coordinate of the vertex
+		 * @param y	the y-coordinate of the vertex
+		 * @param z	the z-coordinate of the vertex
+		 */
+		private VertexKey(double x, double y, double z)
+		{
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+		
+		@Override
+		public boolean equals(Object other)
+		{
+			if(!(other instanceof VertexKey))
+			{
+				return false;
+			}
+			
+			VertexKey key = (VertexKey) other;
+			
+			return Double.compare(x, key.x) == 0 && Double.compare(y, key.y) == 0 && Double.compare(z, key.z) == 0;
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			long hash = Double.doubleToLongBits(x);
+			hash = 31*hash + Double.doubleToLongBits(y);
+			hash = 31*hash + Double.doubleToLongBits(z);
+			
+			return (int) (hash ^ (hash >>> 32));
+		}
+	}
+}
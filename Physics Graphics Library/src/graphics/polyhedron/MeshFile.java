@@ -0,0 +1,292 @@
+package graphics.polyhedron;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/** A class writing meshes to and reading them from the native binary mesh format, laid out so that reading a mesh is a memory mapping
+ * and one bulk copy per block, with nothing parsed or converted element by element
+ * 
+ * A file is a header of eight little endian integers, giving a magic number, the version of the format, flags, the number of vertices,
+ * the number of faces, the number of face indices, the number of colors and a reserved zero, followed by five blocks each starting on a
+ * multiple of eight bytes: the packed vertex coordinates as doubles, or as floats if the first flag is set, the face starts, the face
+ * indices, the ARGB values of the distinct colors of the faces, and the index in to those colors of the color of each face
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class MeshFile
+{
+	/** The number at the start of every mesh file, the characters PGLM */
+	public static final int MAGIC = 0x4D4C4750;
+	
+	/** The version of the format written */
+	public static final int VERSION = 1;
+	
+	/** The flag set when the vertex coordinates are stored as floats rather than doubles */
+	public static final int SINGLE_PRECISION = 1;
+	
+	/** The number of bytes in the header */
+	private static final int HEADER_SIZE = 32;
+	
+	/** Writes the faces of the given polyhedron, placed in space by its transformation, to the given file with coordinates as doubles
+	 * 
+	 * @param polyhedron	the polyhedron written
+	 * @param file	the file written, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Polyhedron3D polyhedron, File file) throws IOException
+	{
+		write(polyhedron.getMesh().transform(polyhedron.getTransform()), file, false);
+	}
+	
+	/** Writes the given mesh to the given file
+	 * 
+	 * @param mesh	the mesh written
+	 * @param file	the file written, replaced if it exists
+	 * @param singlePrecision	the value representing whether the vertex coordinates are stored as floats, halving the size of their block
+	 * @throws IOException if the file cannot be written or the mesh has a block too long to be mapped
+	 */
+	public static void write(Mesh3D mesh, File file, boolean singlePrecision) throws IOException
+	{
+		int faceCount = mesh.getFaceCount();
+		Color[] colors = mesh.getColors();
+		
+		HashMap<Color, Integer> colorIndices = new HashMap<Color, Integer>();
+		int[] faceColors = new int[faceCount];
+		
+		for(int i = 0; i < faceCount; i ++)
+		{
+			Integer index = colorIndices.get(colors[i]);
+			
+			if(index == null)
+			{
+				index = colorIndices.size();
+				colorIndices.put(colors[i], index);
+			}
+			
+			faceColors[i] = index;
+		}
+		
+		int[] palette = new int[colorIndices.size()];
+		for(Color color : colorIndices.keySet())
+		{
+			palette[colorIndices.get(color)] = color.getRGB();
+		}
+		
+		int[] header = {MAGIC, VERSION, singlePrecision ? SINGLE_PRECISION : 0, mesh.getVertexCount(), faceCount,
+						mesh.getFaceIndices().length, palette.length, 0};
+		long[] offsets = getOffsets(header);
+		checkBlocks(file, offsets);
+		
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			map(channel, FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE).asIntBuffer().put(header);
+			
+			ByteBuffer vertexBlock = map(channel, FileChannel.MapMode.READ_WRITE, offsets[0], offsets[1] - offsets[0]);
+			
+			if(singlePrecision)
+			{
+				FloatBuffer block = vertexBlock.asFloatBuffer();
+				double[] vertices = mesh.getVertices();
+				
+				for(int i = 0; i < 3*mesh.getVertexCount(); i ++)
+				{
+					block.put(i, (float) vertices[i]);
+				}
+			}
+			else
+			{
+				vertexBlock.asDoubleBuffer().put(mesh.getVertices(), 0, 3*mesh.getVertexCount());
+			}
+			
+			map(channel, FileChannel.MapMode.READ_WRITE, offsets[1], offsets[2] - offsets[1]).asIntBuffer().put(mesh.getFaceStarts());
+			map(channel, FileChannel.MapMode.READ_WRITE, offsets[2], offsets[3] - offsets[2]).asIntBuffer().put(mesh.getFaceIndices());
+			map(channel, FileChannel.MapMode.READ_WRITE, offsets[3], offsets[4] - offsets[3]).asIntBuffer().put(palette);
+			map(channel, FileChannel.MapMode.READ_WRITE, offsets[4], offsets[5] - offsets[4]).asIntBuffer().put(faceColors);
+		}
+	}
+	
+	/** Returns the mesh stored in the given file, mapping each block of the file and copying it whole in to the arrays of the mesh, then
+	 * checking in one pass over the faces that each is well formed
+	 * 
+	 * @param file	the file read
+	 * @return the mesh stored in the file
+	 * @throws IOException if the file cannot be read, is not a mesh file of a version this class reads, has flags or a reserved value this
+	 * class does not know, has a length other than its header gives or a block too long to be mapped, or has a face whose indices run
+	 * backwards or refer to a vertex or color it does not have
+	 */
+	public static Mesh3D read(File file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			if(channel.size() < HEADER_SIZE)
+			{
+				throw new IOException(file + " is too short to be a mesh file");
+			}
+			
+			int[] header = new int[HEADER_SIZE/4];
+			map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).asIntBuffer().get(header);
+			
+			if(header[0] != MAGIC)
+			{
+				throw new IOException(file + " is not a mesh file");
+			}
+			if(header[1] != VERSION)
+			{
+				throw new IOException(file + " has mesh file version " + header[1] + " but only version " + VERSION + " can be read");
+			}
+			if((header[2] & ~SINGLE_PRECISION) != 0 || header[7] != 0)
+			{
+				throw new IOException(file + " has flags " + header[2] + " and reserved value " + header[7] + " unknown to version " + VERSION);
+			}
+			for(int i = 3; i < 7; i ++)
+			{
+				if(header[i] < 0)
+				{
+					throw new IOException(file + " has a negative count in its header");
+				}
+			}
+			
+			long[] offsets = getOffsets(header);
+			
+			/* Also bounds the arrays read, each holding no more elements than its block has bytes */
+			checkBlocks(file, offsets);
+			
+			if(offsets[5] != channel.size())
+			{
+				throw new IOException(file + " has length " + channel.size() + " but its header gives " + offsets[5]);
+			}
+			
+			double[] vertices = new double[3*header[3]];
+			ByteBuffer vertexBlock = map(channel, FileChannel.MapMode.READ_ONLY, offsets[0], offsets[1] - offsets[0]);
+			
+			if((header[2] & SINGLE_PRECISION) != 0)
+			{
+				FloatBuffer block = vertexBlock.asFloatBuffer();
+				
+				for(int i = 0; i < vertices.length; i ++)
+				{
+					vertices[i] = block.get(i);
+				}
+			}
+			else
+			{
+				DoubleBuffer block = vertexBlock.asDoubleBuffer();
+				block.get(vertices);
+			}
+			
+			int[] faceStarts = new int[header[4] + 1];
+			int[] faceIndices = new int[header[5]];
+			int[] palette = new int[header[6]];
+			int[] faceColors = new int[header[4]];
+			
+			map(channel, FileChannel.MapMode.READ_ONLY, offsets[1], offsets[2] - offsets[1]).asIntBuffer().get(faceStarts);
+			map(channel, FileChannel.MapMode.READ_ONLY, offsets[2], offsets[3] - offsets[2]).asIntBuffer().get(faceIndices);
+			map(channel, FileChannel.MapMode.READ_ONLY, offsets[3], offsets[4] - offsets[3]).asIntBuffer().get(palette);
+			map(channel, FileChannel.MapMode.READ_ONLY, offsets[4], offsets[5] - offsets[4]).asIntBuffer().get(faceColors);
+			
+			if(faceStarts[0] != 0 || faceStarts[header[4]] != faceIndices.length)
+			{
+				throw new IOException(file + " has face starts that do not span its face indices");
+			}
+			for(int i = 0; i < header[4]; i ++)
+			{
+				if(faceStarts[i + 1] < faceStarts[i])
+				{
+					throw new IOException(file + " has face " + i + " ending before it starts");
+				}
+			}
+			for(int i = 0; i < faceIndices.length; i ++)
+			{
+				if(faceIndices[i] < 0 || faceIndices[i] >= header[3])
+				{
+					throw new IOException(file + " has a face referring to vertex " + faceIndices[i] + " of " + header[3]);
+				}
+			}
+			
+			Color[] paletteColors = new Color[palette.length];
+			for(int i = 0; i < palette.length; i ++)
+			{
+				paletteColors[i] = new Color(palette[i], true);
+			}
+			
+			Color[] colors = new Color[faceColors.length];
+			for(int i = 0; i < colors.length; i ++)
+			{
+				if(faceColors[i] < 0 || faceColors[i] >= paletteColors.length)
+				{
+					throw new IOException(file + " has a face with color " + faceColors[i] + " of " + paletteColors.length);
+				}
+				
+				colors[i] = paletteColors[faceColors[i]];
+			}
+			
+			return new Mesh3D(vertices, faceStarts, faceIndices, colors);
+		}
+	}
+	
+	/** Returns the offsets in to a file with the given header at which each block starts, followed by the length of the file
+	 * 
+	 * @param header	the integers of the header
+	 * @return the offsets of the vertex, face start, face index, color and face color blocks, followed by the length of the file
+	 */
+	private static long[] getOffsets(int[] header)
+	{
+		long vertexSize = 3L*header[3]*((header[2] & SINGLE_PRECISION) != 0 ? 4 : 8);
+		long[] sizes = {vertexSize, 4*(header[4] + 1L), 4L*header[5], 4L*header[6], 4L*header[4]};
+		long[] offsets = new long[sizes.length + 1];
+		
+		offsets[0] = HEADER_SIZE;
+		for(int i = 0; i < sizes.length; i ++)
+		{
+			offsets[i + 1] = offsets[i] + sizes[i];
+			
+			/* The last block is not padded */
+			if(i + 1 < sizes.length)
+			{
+				offsets[i + 1] = (offsets[i + 1] + 7) & ~7L;
+			}
+		}
+		
+		return offsets;
+	}
+	
+	/** Checks that each block of a file with the given offsets is short enough to be mapped at once
+	 * 
+	 * @param file	the file of the blocks
+	 * @param offsets	the offsets of the blocks, followed by the length of the file
+	 * @throws IOException if a block is longer than the greatest length of a mapping
+	 */
+	private static void checkBlocks(File file, long[] offsets) throws IOException
+	{
+		for(int i = 0; i + 1 < offsets.length; i ++)
+		{
+			if(offsets[i + 1] - offsets[i] > Integer.MAX_VALUE)
+			{
+				throw new IOException(file + " has a block of " + (offsets[i + 1] - offsets[i]) + " bytes, longer than can be mapped");
+			}
+		}
+	}
+	
+	/** Maps the given region of the given channel as a little endian buffer
+	 * 
+	 * @param channel	the channel of the file
+	 * @param mode	the mode the region is mapped in
+	 * @param offset	the offset in to the file of the region
+	 * @param size	the length of the region in bytes
+	 * @return the buffer of the region
+	 * @throws IOException if the region cannot be mapped
+	 */
+	private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long offset, long size) throws IOException
+	{
+		return channel.map(mode, offset, size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,833 @@
+package graphics.polyhedron;
+
+import java.awt.Color;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** A class loading meshes from Wavefront OBJ and binary STL files, reading each file through memory mapped windows and streaming its
+ * coordinates and indices straight in to the packed arrays of a Mesh3D, so that no object is created per vertex or per face
+ * 
+ * Every face of a loaded mesh is given the same color; materials, texture coordinates and normals in the file are ignored
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class MeshLoader
+{
+	/** The color given to the faces of a loaded mesh when none is given */
+	public static final Color DEFAULT_COLOR = Color.LIGHT_GRAY;
+	
+	/** The number of bytes in the header of a binary STL file, before the number of triangles */
+	private static final int STL_HEADER_SIZE = 80;
+	
+	/** The number of bytes each triangle takes in a binary STL file: a normal, three vertices and an attribute count */
+	private static final int STL_TRIANGLE_SIZE = 50;
+	
+	/** The powers of ten up to the largest exactly representable as a double */
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+													1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+	
+	/** The largest number of significant digits of a decimal whose mantissa is exactly representable as a double */
+	private static final int EXACT_DIGITS = 15;
+	
+	/** Returns the mesh in the given file, read as an OBJ or binary STL file according to its extension
+	 * 
+	 * @param file	the file read
+	 * @return the mesh of the faces in the file
+	 * @throws IOException if the file cannot be read or is malformed
+	 * @throws IllegalArgumentException if the file has neither the extension .obj nor .stl
+	 */
+	public static Mesh3D load(File file) throws IOException
+	{
+		return load(file, DEFAULT_COLOR);
+	}
+	
+	/** Returns the mesh in the given file with every face of the given color, read as an OBJ or binary STL file according to its extension
+	 * 
+	 * @param file	the file read
+	 * @param color	the color of every face
+	 * @return the mesh of the faces in the file
+	 * @throws IOException if the file cannot be read or is malformed
+	 * @throws IllegalArgumentException if the file has neither the extension .obj nor .stl
+	 */
+	public static Mesh3D load(File file, Color color) throws IOException
+	{
+		String name = file.getName().toLowerCase();
+		
+		if(name.endsWith(".obj"))
+		{
+			return loadObj(file, color);
+		}
+		if(name.endsWith(".stl"))
+		{
+			return loadStl(file, color);
+		}
+		
+		throw new IllegalArgumentException("Unrecognized mesh file extension: " + file.getName());
+	}
+	
+	/** Returns the mesh of the vertices and faces of the given Wavefront OBJ file
+	 * 
+	 * @param file	the file read
+	 * @return the mesh of the faces in the file
+	 * @throws IOException if the file cannot be read or is malformed
+	 */
+	public static Mesh3D loadObj(File file) throws IOException
+	{
+		return loadObj(file, DEFAULT_COLOR);
+	}
+	
+	/** Returns the mesh of the vertices and faces of the given Wavefront OBJ file, keeping the vertices as indexed by the file and the faces
+	 * with as many vertices as they are given, and dropping any face with fewer than three
+	 * 
+	 * @param file	the file read
+	 * @param color	the color of every face
+	 * @return the mesh of the faces in the file
+	 * @throws IOException if the file cannot be read, has a number that cannot be parsed or has a face referring to a vertex it does not define
+	 */
+	public static Mesh3D loadObj(File file, Color color) throws IOException
+	{
+		double[] vertices = new double[3*1024];
+		int vertexCount = 0;
+		int[] faceStarts = new int[1024];
+		int[] faceIndices = new int[4*1024];
+		int faceCount = 0;
+		int index = 0;
+		
+		try(ObjReader reader = new ObjReader(file))
+		{
+			while(reader.nextLine())
+			{
+				int keyword = reader.readKeyword();
+				
+				if(keyword == ObjReader.VERTEX)
+				{
+					if(3*vertexCount + 3 > vertices.length)
+					{
+						vertices = Arrays.copyOf(vertices, 2*vertices.length);
+					}
+					
+					vertices[3*vertexCount] = reader.readDouble();
+					vertices[3*vertexCount + 1] = reader.readDouble();
+					vertices[3*vertexCount + 2] = reader.readDouble();
+					vertexCount ++;
+				}
+				else if(keyword == ObjReader.FACE)
+				{
+					int start = index;
+					
+					while(reader.hasToken())
+					{
+						if(index == faceIndices.length)
+						{
+							faceIndices = Arrays.copyOf(faceIndices, 2*faceIndices.length);
+						}
+						
+						faceIndices[index ++] = reader.readIndex(vertexCount);
+					}
+					
+					if(index - start < 3)
+					{
+						index = start;
+						continue;
+					}
+					
+					if(faceCount + 2 > faceStarts.length)
+					{
+						faceStarts = Arrays.copyOf(faceStarts, 2*faceStarts.length);
+					}
+					faceStarts[faceCount ++] = start;
+				}
+			}
+		}
+		faceStarts[faceCount] = index;
+		
+		/* Faces may refer to vertices defined after them */
+		for(int i = 0; i < index; i ++)
+		{
+			if(faceIndices[i] >= vertexCount)
+			{
+				throw new IOException(file + " has a face referring to vertex " + (faceIndices[i] + 1) + " of " + vertexCount);
+			}
+		}
+		
+		Color[] colors = new Color[faceCount];
+		Arrays.fill(colors, color);
+		
+		return new Mesh3D(Arrays.copyOf(vertices, 3*vertexCount), Arrays.copyOf(faceStarts, faceCount + 1), Arrays.copyOf(faceIndices, index), colors);
+	}
+	
+	/** Returns the mesh of the triangles of the given binary STL file
+	 * 
+	 * @param file	the file read
+	 * @return the mesh of the triangles in the file
+	 * @throws IOException if the file cannot be read or is not a binary STL file
+	 */
+	public static Mesh3D loadStl(File file) throws IOException
+	{
+		return loadStl(file, DEFAULT_COLOR);
+	}
+	
+	/** Returns the mesh of the triangles of the given binary STL file, welding the corners of triangles with equal coordinates in to shared
+	 * vertices and dropping the triangles left with fewer than three distinct vertices
+	 * 
+	 * @param file	the file read
+	 * @param color	the color of every face
+	 * @return the mesh of the triangles in the file
+	 * @throws IOException if the file cannot be read or is not a binary STL file, which includes ASCII STL files
+	 */
+	public static Mesh3D loadStl(File file, Color color) throws IOException
+	{
+		try(MappedInput input = new MappedInput(file))
+		{
+			if(input.size() < STL_HEADER_SIZE + 4)
+			{
+				throw new IOException(file + " is too short to be a binary STL file");
+			}
+			
+			input.skip(STL_HEADER_SIZE);
+			long triangleCount = input.readInt() & 0xffffffffL;
+			
+			/* Exporters often pad or append to the triangles, so only a file too short to hold them is rejected */
+			if(STL_HEADER_SIZE + 4 + STL_TRIANGLE_SIZE*triangleCount > input.size())
+			{
+				throw new IOException(file + " is too short to be a binary STL file of " + triangleCount + " triangles");
+			}
+			if(3*triangleCount > Integer.MAX_VALUE - 8)
+			{
+				throw new IOException(file + " has too many triangles to load: " + triangleCount);
+			}
+			
+			/* A closed triangle mesh has about half as many vertices as triangles */
+			VertexTable table = new VertexTable((int) (triangleCount/2));
+			int[] faceIndices = new int[(int) (3*triangleCount)];
+			int index = 0;
+			
+			for(long i = 0; i < triangleCount; i ++)
+			{
+				input.skip(12);
+				int a = table.add(input.readFloat(), input.readFloat(), input.readFloat());
+				int b = table.add(input.readFloat(), input.readFloat(), input.readFloat());
+				int c = table.add(input.readFloat(), input.readFloat(), input.readFloat());
+				input.skip(2);
+				
+				if(a != b && b != c && c != a)
+				{
+					faceIndices[index ++] = a;
+					faceIndices[index ++] = b;
+					faceIndices[index ++] = c;
+				}
+			}
+			
+			int faceCount = index/3;
+			int[] faceStarts = new int[faceCount + 1];
+			
+			for(int i = 0; i <= faceCount; i ++)
+			{
+				faceStarts[i] = 3*i;
+			}
+			
+			Color[] colors = new Color[faceCount];
+			Arrays.fill(colors, color);
+			
+			return new Mesh3D(table.toArray(), faceStarts, index == faceIndices.length ? faceIndices : Arrays.copyOf(faceIndices, index), colors);
+		}
+	}
+	
+	/** Returns the double given by the characters of the given token, computed directly when both its digits and the power of ten scaling
+	 * them are exactly representable, in which case a single rounded multiplication or division gives the correctly rounded result
+	 * 
+	 * @param token	the bytes of the characters of the number
+	 * @param length	the number of characters of the number
+	 * @return the value of the number
+	 * @throws NumberFormatException if the token is not a number
+	 */
+	private static double parseDouble(byte[] token, int length)
+	{
+		int i = 0;
+		boolean negative = false;
+		
+		if(i < length && (token[i] == '-' || token[i] == '+'))
+		{
+			negative = token[i ++] == '-';
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		boolean anyDigits = false;
+		int exponent = 0;
+		boolean point = false;
+		
+		for(; i < length; i ++)
+		{
+			int c = token[i];
+			
+			if(c >= '0' && c <= '9')
+			{
+				anyDigits = true;
+				if(mantissa != 0 || c != '0')
+				{
+					digits ++;
+				}
+				if(digits > EXACT_DIGITS)
+				{
+					break;
+				}
+				
+				mantissa = 10*mantissa + (c - '0');
+				if(point)
+				{
+					exponent --;
+				}
+			}
+			else if(c == '.' && !point)
+			{
+				point = true;
+			}
+			else
+			{
+				break;
+			}
+		}
+		
+		if(anyDigits && i < length && (token[i] == 'e' || token[i] == 'E'))
+		{
+			int j = i + 1;
+			boolean negativeExponent = false;
+			
+			if(j < length && (token[j] == '-' || token[j] == '+'))
+			{
+				negativeExponent = token[j ++] == '-';
+			}
+			
+			int power = 0;
+			int start = j;
+			
+			for(; j < length && token[j] >= '0' && token[j] <= '9' && power < 1000; j ++)
+			{
+				power = 10*power + (token[j] - '0');
+			}
+			
+			if(j > start)
+			{
+				exponent += negativeExponent ? -power : power;
+				i = j;
+			}
+		}
+		
+		if(!anyDigits || i != length || exponent < -22 || exponent > 22)
+		{
+			return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+		}
+		
+		double value = exponent < 0 ? mantissa/POWERS_OF_TEN[-exponent] : mantissa*POWERS_OF_TEN[exponent];
+		
+		return negative ? -value : value;
+	}
+	
+	/** A class reading a file through memory mapped windows, so that files larger than a single mapping can be read, with numbers in little endian order
+	 * 
+	 */
+	private static class MappedInput implements Closeable
+	{
+		/** The greatest number of bytes mapped at once */
+		private static final long WINDOW_SIZE = 1L << 30;
+		
+		/** The channel of the file read */
+		private final FileChannel channel;
+		
+		/** The length of the file in bytes */
+		private final long size;
+		
+		/** The offset in to the file of the start of the window mapped */
+		private long windowStart;
+		
+		/** The window of the file currently mapped */
+		private MappedByteBuffer buffer;
+		
+		/** Parameterized constructor, opens the given file and maps its first window
+		 * 
+		 * @param file	the file read
+		 * @throws IOException if the file cannot be opened or mapped
+		 */
+		private MappedInput(File file) throws IOException
+		{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			
+			try
+			{
+				size = channel.size();
+				map(0);
+			}
+			catch(IOException e)
+			{
+				channel.close();
+				throw e;
+			}
+		}
+		
+		/** Maps the window of the file starting at the given offset
+		 * 
+		 * @param start	the offset in to the file of the start of the window
+		 * @throws IOException if the window cannot be mapped
+		 */
+		private void map(long start) throws IOException
+		{
+			windowStart = start;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		/** Returns the next byte of the file
+		 * 
+		 * @return the next byte as an unsigned value, or -1 at the end of the file
+		 * @throws IOException if the next window cannot be mapped
+		 */
+		private int read() throws IOException
+		{
+			if(!buffer.hasRemaining())
+			{
+				long next = windowStart + buffer.limit();
+				
+				if(next >= size)
+				{
+					return -1;
+				}
+				map(next);
+			}
+			
+			return buffer.get() & 0xff;
+		}
+		
+		/** Returns the next four bytes of the file as a little endian integer
+		 * 
+		 * @return the integer read
+		 * @throws IOException if the file ends before four bytes or the next window cannot be mapped
+		 */
+		private int readInt() throws IOException
+		{
+			if(buffer.remaining() >= 4)
+			{
+				return buffer.getInt();
+			}
+			
+			int value = 0;
+			for(int i = 0; i < 4; i ++)
+			{
+				int b = read();
+				
+				if(b < 0)
+				{
+					throw new IOException("Unexpected end of file");
+				}
+				value |= b << (8*i);
+			}
+			
+			return value;
+		}
+		
+		/** Returns the next four bytes of the file as a little endian float
+		 * 
+		 * @return the float read
+		 * @throws IOException if the file ends before four bytes or the next window cannot be mapped
+		 */
+		private float readFloat() throws IOException
+		{
+			return buffer.remaining() >= 4 ? buffer.getFloat() : Float.intBitsToFloat(readInt());
+		}
+		
+		/** Skips the given number of bytes of the file
+		 * 
+		 * @param count	the number of bytes skipped
+		 * @throws IOException if the window of the position skipped to cannot be mapped
+		 */
+		private void skip(int count) throws IOException
+		{
+			if(count <= buffer.remaining())
+			{
+				buffer.position(buffer.position() + count);
+			}
+			else
+			{
+				map(Math.min(windowStart + buffer.position() + count, size));
+			}
+		}
+		
+		/**
+		 * @return the length of the file in bytes
+		 */
+		private long size()
+		{
+			return size;
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			buffer = null;
+			channel.close();
+		}
+	}
+	
+	/** A class reading the lines of an OBJ file one token at a time, holding the characters of each number in a reused array
+	 * 
+	 */
+	private static class ObjReader implements Closeable
+	{
+		/** The kind of a line defining a vertex */
+		private static final int VERTEX = 1;
+		
+		/** The kind of a line defining a face */
+		private static final int FACE = 2;
+		
+		/** The kind of any other line, which is skipped */
+		private static final int OTHER = 0;
+		
+		/** The file read */
+		private final File file;
+		
+		/** The input the file is read from */
+		private final MappedInput input;
+		
+		/** The byte after the last one consumed, or -1 at the end of the file */
+		private int current;
+		
+		/** The number of the line being read, counting from 1 */
+		private int line;
+		
+		/** The characters of the token last read */
+		private byte[] token = new byte[64];
+		
+		/** Parameterized constructor, opens the given file for reading
+		 * 
+		 * @param file	the file read
+		 * @throws IOException if the file cannot be opened
+		 */
+		private ObjReader(File file) throws IOException
+		{
+			this.file = file;
+			this.input = new MappedInput(file);
+			this.current = input.read();
+		}
+		
+		/** Skips the rest of the line being read, if any, and moves to the start of the next line
+		 * 
+		 * @return true if there is a next line, false at the end of the file
+		 * @throws IOException if the file cannot be read
+		 */
+		private boolean nextLine() throws IOException
+		{
+			if(line > 0)
+			{
+				while(current != '\n' && current != -1)
+				{
+					current = input.read();
+				}
+				if(current == '\n')
+				{
+					current = input.read();
+				}
+			}
+			line ++;
+			
+			return current != -1;
+		}
+		
+		/** Returns the kind of the line being read, given by the keyword starting it
+		 * 
+		 * @return VERTEX or FACE for the lines loaded, or OTHER for any other line
+		 * @throws IOException if the file cannot be read
+		 */
+		private int readKeyword() throws IOException
+		{
+			if(!hasToken())
+			{
+				return OTHER;
+			}
+			
+			int length = readToken();
+			
+			if(length == 1 && token[0] == 'v')
+			{
+				return VERTEX;
+			}
+			if(length == 1 && token[0] == 'f')
+			{
+				return FACE;
+			}
+			
+			return OTHER;
+		}
+		
+		/** Returns whether a token follows on the line being read, skipping the whitespace before it
+		 * 
+		 * @return true if the line has a further token
+		 * @throws IOException if the file cannot be read
+		 */
+		private boolean hasToken() throws IOException
+		{
+			while(current == ' ' || current == '\t' || current == '\r')
+			{
+				current = input.read();
+			}
+			
+			/* A backslash at the end of a line continues it on the next */
+			if(current == '\\')
+			{
+				current = input.read();
+				
+				if(current == '\r')
+				{
+					current = input.read();
+				}
+				if(current == '\n')
+				{
+					current = input.read();
+					line ++;
+					return hasToken();
+				}
+				
+				throw error("Unexpected backslash");
+			}
+			
+			return current != '\n' && current != '#' && current != -1;
+		}
+		
+		/** Reads the next token of the line in to the token array
+		 * 
+		 * @return the number of characters of the token
+		 * @throws IOException if the file cannot be read
+		 */
+		private int readToken() throws IOException
+		{
+			int length = 0;
+			
+			while(current > ' ' && current != '#')
+			{
+				if(length == token.length)
+				{
+					token = Arrays.copyOf(token, 2*token.length);
+				}
+				
+				token[length ++] = (byte) current;
+				current = input.read();
+			}
+			
+			return length;
+		}
+		
+		/** Returns the next token of the line as a number
+		 * 
+		 * @return the number read
+		 * @throws IOException if the line has no further token or the token is not a number
+		 */
+		private double readDouble() throws IOException
+		{
+			if(!hasToken())
+			{
+				throw error("Expected a number");
+			}
+			
+			int length = readToken();
+			
+			try
+			{
+				return parseDouble(token, length);
+			}
+			catch(NumberFormatException e)
+			{
+				throw error("Malformed number " + new String(token, 0, length, StandardCharsets.US_ASCII));
+			}
+		}
+		
+		/** Returns the vertex index of the next corner of a face, ignoring any texture coordinate and normal indices given with it
+		 * 
+		 * @param vertexCount	the number of vertices defined before the face, against which negative indices are resolved
+		 * @return the zero based index of the vertex
+		 * @throws IOException if the corner does not start with a nonzero integer
+		 */
+		private int readIndex(int vertexCount) throws IOException
+		{
+			boolean negative = current == '-';
+			
+			if(negative || current == '+')
+			{
+				current = input.read();
+			}
+			
+			long value = 0;
+			int digits = 0;
+			
+			for(; current >= '0' && current <= '9'; digits ++)
+			{
+				value = Math.min(10*value + (current - '0'), Integer.MAX_VALUE);
+				current = input.read();
+			}
+			
+			/* Skips the texture coordinate and normal indices */
+			while(current > ' ' && current != '#')
+			{
+				current = input.read();
+			}
+			
+			if(digits == 0 || value == 0)
+			{
+				throw error("Malformed vertex index");
+			}
+			
+			if(negative)
+			{
+				if(value > vertexCount)
+				{
+					throw error("Relative vertex index -" + value + " precedes the first vertex");
+				}
+				
+				return (int) (vertexCount - value);
+			}
+			
+			return (int) (value - 1);
+		}
+		
+		/** Returns an exception describing a problem on the line being read
+		 * 
+		 * @param message	the problem
+		 * @return an exception naming the file and line
+		 */
+		private IOException error(String message)
+		{
+			return new IOException(file + ", line " + line + ": " + message);
+		}
+		
+		@Override
+		public void close() throws IOException
+		{
+			input.close();
+		}
+	}
+	
+	/** A class collecting distinct vertices in to a packed coordinate array, finding vertices already added through an open addressing hash
+	 * table of indices, so that welding creates no object per vertex
+	 * 
+	 */
+	private static class VertexTable
+	{
+		/** The packed (x, y, z) coordinates of the vertices added */
+		private double[] vertices;
+		
+		/** The number of vertices added */
+		private int vertexCount;
+		
+		/** The slots of the hash table, holding one more than the index of a vertex, or 0 where empty */
+		private int[] slots;
+		
+		/** Parameterized constructor, initializes an empty table with room for about the given number of vertices
+		 * 
+		 * @param capacity	the number of vertices expected
+		 */
+		private VertexTable(int capacity)
+		{
+			capacity = Math.max(capacity, 16);
+			
+			vertices = new double[3*capacity];
+			slots = new int[Integer.highestOneBit(2*capacity - 1) << 1];
+		}
+		
+		/** Returns the index of the vertex with the given coordinates, adding it if it has not been added
+		 * 
+		 * @param x	the x-coordinate of the vertex
+		 * @param y	the y-coordinate of the vertex
+		 * @param z	the z-coordinate of the vertex
+		 * @return the index of the vertex
+		 */
+		private int add(double x, double y, double z)
+		{
+			/* Adding zero turns negative zero in to zero, so that the two are welded */
+			x += 0.0;
+			y += 0.0;
+			z += 0.0;
+			
+			int mask = slots.length - 1;
+			int slot = hash(x, y, z) & mask;
+			
+			while(slots[slot] != 0)
+			{
+				int vertex = 3*(slots[slot] - 1);
+				
+				if(vertices[vertex] == x && vertices[vertex + 1] == y && vertices[vertex + 2] == z)
+				{
+					return slots[slot] - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			
+			if(3*vertexCount == vertices.length)
+			{
+				vertices = Arrays.copyOf(vertices, 2*vertices.length);
+			}
+			
+			vertices[3*vertexCount] = x;
+			vertices[3*vertexCount + 1] = y;
+			vertices[3*vertexCount + 2] = z;
+			slots[slot] = ++ vertexCount;
+			
+			if(2*vertexCount > slots.length)
+			{
+				rehash();
+			}
+			
+			return vertexCount - 1;
+		}
+		
+		/** Doubles the number of slots of the hash table, placing every vertex anew
+		 * 
+		 */
+		private void rehash()
+		{
+			slots = new int[2*slots.length];
+			int mask = slots.length - 1;
+			
+			for(int i = 0; i < vertexCount; i ++)
+			{
+				int slot = hash(vertices[3*i], vertices[3*i + 1], vertices[3*i + 2]) & mask;
+				
+				while(slots[slot] != 0)
+				{
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = i + 1;
+			}
+		}
+		
+		/** Returns the hash of the given coordinates, mixed so that its low bits depend on every coordinate
+		 * 
+		 * @param x	the x-coordinate
+		 * @param y	the y-coordinate
+		 * @param z	the z-coordinate
+		 * @return the hash of the coordinates
+		 */
+		private static int hash(double x, double y, double z)
+		{
+			long hash = Double.doubleToLongBits(x);
+			hash = 31*hash + Double.doubleToLongBits(y);
+			hash = 31*hash + Double.doubleToLongBits(z);
+			
+			int mixed = (int) (hash ^ (hash >>> 32))*0x9E3779B9;
+			
+			return mixed ^ (mixed >>> 16);
+		}
+		
+		/**
+		 * @return the packed coordinates of the vertices added, in an array of exactly their length
+		 */
+		private double[] toArray()
+		{
+			return Arrays.copyOf(vertices, 3*vertexCount);
+		}
+	}
+}
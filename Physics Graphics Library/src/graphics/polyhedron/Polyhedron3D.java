@@ -1,12 +1,14 @@
 package graphics.polyhedron;
 
 import java.awt.Color;
+import java.util.Arrays;
 
 import graphics.polygon.*;
-import graphics.projection.Point2D;
+import graphics.projection.DepthSorter;
 import graphics.projection.PolygonProjection;
 import graphics.projection.PolyhedronProjection;
 import graphics.projection.View;
+import graphics.projection.ViewTransform;
 
 /** A class representing a polyhedron in 3D space
  * 
@@ -14,9 +16,51 @@ import graphics.projection.View;
  */
 public class Polyhedron3D
 {
-	/** The array of polygons in 3D space comprising this polyhedron */
+	/** The number of cubes across the bounding sphere of the mesh with which its finest simplified version is clustered */
+	private static final int FINEST_DETAIL_CELLS = 64;
+	
+	/** The indexed mesh of shared vertices and faces comprising this polyhedron */
+	private Mesh3D mesh;
+	
+	/** The transformation from the coordinates of the mesh to the coordinates of this polyhedron in space, applied only when projected or when its geometry is requested */
+	private Transform3D transform;
+	
+	/** The array of polygons in 3D space comprising this polyhedron, built from the mesh when first requested */
 	private Polygon3D[] polygons;
 	
+	/** The value representing whether faces turned away from the view are dropped when this polyhedron is projected */
+	private boolean backFaceCulling;
+	
+	/** The simplified versions of the mesh, from finest to coarsest, drawn in its place when small on the view plane, or null if there are none */
+	private Mesh3D[] detailMeshes;
+	
+	/** The greatest distance in the coordinates of the mesh by which each simplified version departs from the mesh */
+	private double[] detailErrors;
+	
+	/** The greatest distance in pixels on the view plane by which the version of the mesh drawn may depart from the mesh */
+	private double detailTolerance = 1;
+	
+	/** The center and radius of a sphere containing this polyhedron in space, computed when first requested */
+	private double[] boundingSphere;
+	
+	/** The camera coordinates of the vertices of the mesh, reused between projections */
+	private double[] cameraVertices;
+	
+	/** The brightness of each face of the mesh under the lights of the view, reused between projections */
+	private double[] faceIntensities;
+	
+	/** The sorter ordering the faces of the projections of this polyhedron, shared between successive projections and created by the first */
+	private DepthSorter sorter;
+	
+	/** The view this polyhedron was last projected from */
+	private View projectedView;
+	
+	/** The version of the view this polyhedron was last projected from at the time of projection */
+	private int projectedVersion;
+	
+	/** The projection of this polyhedron from the view it was last projected from */
+	private PolyhedronProjection projection;
+	
 	/** Default constructor
 	 * 
 	 */
@@ -25,16 +69,36 @@ public class Polyhedron3D
 		this(new Polygon3D[0]);
 	}
 	
-	/** Parameterized constructor, initializes this instance to the given array of polygons in 3D space
+	/** Parameterized constructor, initializes this instance to the given array of polygons in 3D space, merging points shared between polygons
 	 * 
 	 * @param polygons	the array of polygons this instance will be set to contain
 	 */
 	public Polyhedron3D(Polygon3D[] polygons)
 	{
-		this.polygons = polygons;
+		this(Mesh3D.fromPolygons(polygons));
+	}
+	
+	/** Parameterized constructor, initializes this instance to the given indexed mesh
+	 * 
+	 * @param mesh	the mesh this instance will be set to contain
+	 */
+	public Polyhedron3D(Mesh3D mesh)
+	{
+		this(mesh, new Transform3D());
 	}
 	
-	/** Returns a translated instance of this Polyhedron3D
+	/** Parameterized constructor, initializes this instance to the given indexed mesh placed in space by the given transformation
+	 * 
+	 * @param mesh	the mesh this instance will be set to contain
+	 * @param transform	the transformation from the coordinates of the mesh to the coordinates of this instance, used without being copied
+	 */
+	public Polyhedron3D(Mesh3D mesh, Transform3D transform)
+	{
+		this.mesh = mesh;
+		this.transform = transform;
+	}
+	
+	/** Returns a translated instance of this Polyhedron3D, sharing the mesh of this instance and deferring the translation until it is projected
 	 * 
 	 * @param x	the x-coordinate translated by
 	 * @param y	the y-coordinate translated by
@@ -43,82 +107,370 @@ public class Polyhedron3D
 	 */
 	public Polyhedron3D translate(double x, double y, double z)
 	{
-		Polygon3D[] translatedPolys = new Polygon3D[polygons.length];
-
-		for(int i = 0; i < translatedPolys.length; i ++)
-		{
-			translatedPolys[i] = polygons[i].translate(x, y, z);
-		}
-		
-		return new Polyhedron3D(translatedPolys);
+		return transformed(transform.translate(x, y, z));
 	}
 	
-	/** Returns a rotated instance of this Polyhedron3D about the x-axis through the given angle
+	/** Returns a rotated instance of this Polyhedron3D about the x-axis through the given angle, sharing the mesh of this instance
+	 * and deferring the rotation until it is projected
 	 * 
 	 * @param turnAngle	the angle rotated through
 	 * @return a version of this instance rotated the given angle about the x-axis
 	 */
 	public Polyhedron3D rotAboutX(double turnAngle)
 	{
-		Polygon3D[] rotatedPolys = new Polygon3D[polygons.length];
+		return transformed(transform.rotAboutX(turnAngle));
+	}
+	
+	/** Returns a rotated instance of this Polyhedron3D about the y-axis through the given angle, sharing the mesh of this instance
+	 * and deferring the rotation until it is projected
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the y-axis
+	 */
+	public Polyhedron3D rotAboutY(double turnAngle)
+	{
+		return transformed(transform.rotAboutY(turnAngle));
+	}
+	
+	/** Returns a rotated instance of this Polyhedron3D about the z-axis through the given angle, sharing the mesh of this instance
+	 * and deferring the rotation until it is projected
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the z-axis
+	 */
+	public Polyhedron3D rotAboutZ(double turnAngle)
+	{
+		return transformed(transform.rotAboutZ(turnAngle));
+	}
+	
+	/** Translates this Polyhedron3D in place by the given values, without allocating
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 */
+	public void translateInPlace(double x, double y, double z)
+	{
+		transform.translateInPlace(x, y, z);
+		geometryChanged();
+	}
+	
+	/** Rotates this Polyhedron3D in place about the x-axis through the given angle, without allocating
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutXInPlace(double turnAngle)
+	{
+		transform.rotAboutXInPlace(turnAngle);
+		geometryChanged();
+	}
+	
+	/** Rotates this Polyhedron3D in place about the y-axis through the given angle, without allocating
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutYInPlace(double turnAngle)
+	{
+		transform.rotAboutYInPlace(turnAngle);
+		geometryChanged();
+	}
+	
+	/** Rotates this Polyhedron3D in place about the z-axis through the given angle, without allocating
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutZInPlace(double turnAngle)
+	{
+		transform.rotAboutZInPlace(turnAngle);
+		geometryChanged();
+	}
+	
+	/** Method returning projection of this polyhedron on to given plane, reusing the previous projection if the view has not changed since
+	 * 
+	 * @param view	The View that this polygon is being looked at from
+	 * @return the Projection object resulting from the projection of instance on to given plane 
+	 */
+	public PolyhedronProjection getProjection(View view)
+	{
+		if(view != projectedView || view.getVersion() != projectedVersion)
+		{
+			projection = getProjection(view.getTransform());
+			projectedView = view;
+			projectedVersion = view.getVersion();
+		}
 		
-		for(int i = 0; i < polygons.length; i ++)
+		return projection;
+	}
+	
+	/** Method returning projection of this polyhedron through the given view transformation, transforming each vertex of the mesh once
+	 * by the composition of the view transformation with the transformation of this polyhedron
+	 * 
+	 * @param viewTransform	The ViewTransform of the View that this polyhedron is being looked at from
+	 * @return the Projection object resulting from the projection of instance on to the view plane of the transformation
+	 */
+	public PolyhedronProjection getProjection(ViewTransform viewTransform)
+	{
+		if(sorter == null)
 		{
-			rotatedPolys[i] = polygons[i].rotAboutX(turnAngle);
+			sorter = new DepthSorter();
 		}
 		
-		return new Polyhedron3D(rotatedPolys);
+		return project(viewTransform, transform, getBoundingSphere(), sorter);
 	}
 	
-	/** Returns a rotated instance of this Polyhedron3D about the y-axis through the given angle
+	/** Method returning projection of the mesh of this polyhedron placed in space by the given transformation, reusing the buffers of this
+	 * polyhedron so that any number of placements of it may be projected one after another without copying its geometry
 	 * 
-	 * @param turnAngle	the angle rotated through
-	 * @return a version of this instance rotated the given angle about the y-axis
+	 * @param viewTransform	The ViewTransform of the View that the mesh is being looked at from
+	 * @param placement	the transformation from the coordinates of the mesh to space
+	 * @param sphere	the center and radius of a sphere containing the mesh once placed
+	 * @param sorter	the sorter the projection is drawn with, or null if one is to be created when it is first drawn
+	 * @return the Projection object resulting from the projection of the placed mesh on to the view plane of the transformation
 	 */
-	public Polyhedron3D rotAboutY(double turnAngle)
+	PolyhedronProjection project(ViewTransform viewTransform, Transform3D placement, double[] sphere, DepthSorter sorter)
+	{
+		if(!viewTransform.isVisible(sphere[0], sphere[1], sphere[2], sphere[3]))
+		{
+			return new PolyhedronProjection(new PolygonProjection[0], sorter);
+		}
+		
+		/* The coarsest version of the mesh departing from it by less than the tolerance on the view plane */
+		Mesh3D detail = getDetailMesh(viewTransform, placement, sphere);
+		int vertexCount = detail.getVertexCount();
+		
+		if(cameraVertices == null || cameraVertices.length < 3*vertexCount)
+		{
+			cameraVertices = new double[3*vertexCount];
+		}
+		
+		viewTransform.getCameraTransform().multiply(placement).transform(detail.getVertices(), cameraVertices, vertexCount);
+		
+		int[] faceStarts = detail.getFaceStarts();
+		int[] faceIndices = detail.getFaceIndices();
+		Color[] colors = detail.getColors();
+		
+		boolean lit = viewTransform.isLit();
+		
+		if(lit)
+		{
+			if(faceIntensities == null || faceIntensities.length < detail.getFaceCount())
+			{
+				faceIntensities = new double[detail.getFaceCount()];
+			}
+			
+			viewTransform.light(detail.getNormals(), detail.getFaceCount(), placement, faceIntensities);
+		}
+		
+		/* The eye in the coordinates of the mesh, on the other side of every face if the transformation reverses orientation */
+		Point3D eye = backFaceCulling ? placement.inverse().apply(viewTransform.getEye()) : null;
+		boolean reversed = backFaceCulling && placement.determinant() < 0;
+		
+		PolygonProjection[] projections = new PolygonProjection[detail.getFaceCount()];
+		int projectionCount = 0;
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			if(backFaceCulling && detail.isFacing(i, eye.getX(), eye.getY(), eye.getZ()) == reversed)
+			{
+				continue;
+			}
+			
+			projections[projectionCount ++] = viewTransform.project(cameraVertices, faceIndices, faceStarts[i], faceStarts[i + 1], colors[i],
+					lit ? faceIntensities[i] : Double.NaN);
+		}
+		
+		return new PolyhedronProjection(projectionCount == projections.length ? projections : Arrays.copyOf(projections, projectionCount), sorter);
+	}
+	
+	/** Generates up to the given number of simplified versions of the mesh of this polyhedron by vertex clustering, each clustered with
+	 * cubes twice the size of the previous, drawn in place of the mesh whenever its projection is small enough that the details lost
+	 * span less than the detail tolerance; versions with no fewer faces than the previous are not kept
+	 * 
+	 * @param levelCount	the greatest number of simplified versions generated, none being drawn if zero
+	 */
+	public void generateLevelsOfDetail(int levelCount)
 	{
-		Polygon3D[] rotatedPolys = new Polygon3D[polygons.length];
+		Mesh3D[] meshes = new Mesh3D[levelCount];
+		double[] errors = new double[levelCount];
+		int meshCount = 0;
 		
-		for(int i = 0; i < polygons.length; i ++)
+		double diameter = 2*mesh.getBoundingSphere()[3];
+		int faceCount = mesh.getFaceCount();
+		
+		for(int cells = FINEST_DETAIL_CELLS; cells >= 1 && meshCount < levelCount && diameter > 0; cells /= 2)
 		{
-			rotatedPolys[i] = polygons[i].rotAboutY(turnAngle);
+			Mesh3D simplified = mesh.simplify(diameter/cells);
+			
+			if(simplified.getFaceCount() < faceCount)
+			{
+				/* No vertex moves farther than the diagonal of a cube of the grid */
+				meshes[meshCount] = simplified;
+				errors[meshCount ++] = Math.sqrt(3)*diameter/cells;
+				faceCount = simplified.getFaceCount();
+			}
 		}
 		
-		return new Polyhedron3D(rotatedPolys);
+		detailMeshes = meshCount == 0 ? null : Arrays.copyOf(meshes, meshCount);
+		detailErrors = meshCount == 0 ? null : Arrays.copyOf(errors, meshCount);
+		projectedView = null;
 	}
 	
-	/** Returns a rotated instance of this Polyhedron3D about the z-axis through the given angle
+	/** Returns the coarsest version of the mesh of this polyhedron whose departure from the mesh, seen from the given view at the nearest
+	 * point of the bounding sphere of this polyhedron, is within the detail tolerance
 	 * 
-	 * @param turnAngle	the angle rotated through
-	 * @return a version of this instance rotated the given angle about the z-axis
+	 * @param viewTransform	the transformation on to the view plane of the view this polyhedron is seen from
+	 * @return the mesh or the simplified version of it drawn
 	 */
-	public Polyhedron3D rotAboutZ(double turnAngle)
+	public Mesh3D getDetailMesh(ViewTransform viewTransform)
+	{
+		return getDetailMesh(viewTransform, transform, getBoundingSphere());
+	}
+	
+	/** Returns the coarsest version of the mesh of this polyhedron placed in space by the given transformation whose departure from the
+	 * mesh, seen from the given view at the nearest point of the given bounding sphere, is within the detail tolerance
+	 * 
+	 * @param viewTransform	the transformation on to the view plane of the view the mesh is seen from
+	 * @param placement	the transformation from the coordinates of the mesh to space
+	 * @param sphere	the center and radius of a sphere containing the mesh once placed
+	 * @return the mesh or the simplified version of it drawn
+	 */
+	private Mesh3D getDetailMesh(ViewTransform viewTransform, Transform3D placement, double[] sphere)
 	{
-		Polygon3D[] rotatedPolys = new Polygon3D[polygons.length];
+		if(detailMeshes == null)
+		{
+			return mesh;
+		}
+		
+		Transform3D camera = viewTransform.getCameraTransform();
+		double focalLength = viewTransform.getFocalLength();
 		
-		for(int i = 0; i < polygons.length; i ++)
+		double nearestZ = Math.max(ViewTransform.NEAR_PLANE, camera.transformZ(sphere[0], sphere[1], sphere[2]) - sphere[3]);
+		double pixelsPerUnit = placement.getMaxScale()*focalLength/(nearestZ + focalLength);
+		
+		Mesh3D detail = mesh;
+		
+		for(int i = 0; i < detailMeshes.length && detailErrors[i]*pixelsPerUnit <= detailTolerance; i ++)
 		{
-			rotatedPolys[i] = polygons[i].rotAboutZ(turnAngle);
+			detail = detailMeshes[i];
 		}
 		
-		return new Polyhedron3D(rotatedPolys);
+		return detail;
 	}
 	
-	/** Method returning projection of this polyhedron on to given plane
+	/** Returns a sphere containing this polyhedron in space, computed the first time it is requested after this polyhedron is transformed
 	 * 
-	 * @param view	The View that this polygon is being looked at from
-	 * @return the Projection object resulting from the projection of instance on to given plane 
+	 * @return the x, y, and z coordinates of the center of the sphere followed by its radius
 	 */
-	public PolyhedronProjection getProjection(View view)
+	public double[] getBoundingSphere()
 	{
-		PolygonProjection[] projections = new PolygonProjection[polygons.length];
+		if(boundingSphere == null)
+		{
+			boundingSphere = getBoundingSphere(transform);
+		}
 		
-		for(int i = 0; i < projections.length; i ++)
+		return boundingSphere;
+	}
+	
+	/** Returns a sphere containing the mesh of this polyhedron placed in space by the given transformation
+	 * 
+	 * @param placement	the transformation from the coordinates of the mesh to space
+	 * @return the x, y, and z coordinates of the center of the sphere followed by its radius
+	 */
+	double[] getBoundingSphere(Transform3D placement)
+	{
+		double[] meshSphere = mesh.getBoundingSphere();
+		Point3D center = placement.apply(new Point3D(meshSphere[0], meshSphere[1], meshSphere[2]));
+		
+		return new double[] {center.getX(), center.getY(), center.getZ(), meshSphere[3]*placement.getMaxScale()};
+	}
+	
+	/** Returns the axis-aligned box containing this polyhedron in space, found from the corners of the bounding box of its mesh
+	 * 
+	 * @return the minimum x, y, and z coordinates of this polyhedron followed by the maximum x, y, and z coordinates
+	 */
+	public double[] getBoundingBox()
+	{
+		double[] meshBox = mesh.getBoundingBox();
+		double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+						Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		
+		for(int i = 0; i < 8; i ++)
 		{
-			projections[i] = polygons[i].getProjection(view);
+			double x = meshBox[(i & 1) == 0 ? 0 : 3];
+			double y = meshBox[(i & 2) == 0 ? 1 : 4];
+			double z = meshBox[(i & 4) == 0 ? 2 : 5];
+			
+			double[] corner = {transform.transformX(x, y, z), transform.transformY(x, y, z), transform.transformZ(x, y, z)};
+			
+			for(int j = 0; j < 3; j ++)
+			{
+				box[j] = Math.min(box[j], corner[j]);
+				box[j + 3] = Math.max(box[j + 3], corner[j]);
+			}
 		}
 		
-		return new PolyhedronProjection(projections);
+		return box;
+	}
+	
+	/**
+	 * @return true if faces turned away from the view are dropped when this polyhedron is projected
+	 */
+	public boolean isBackFaceCulling()
+	{
+		return backFaceCulling;
+	}
+	
+	/** Sets whether faces turned away from the view are dropped when this polyhedron is projected, which is only correct for closed
+	 * polyhedra whose faces all list their points counterclockwise as seen from outside
+	 * 
+	 * @param backFaceCulling	the value representing whether back faces are dropped
+	 */
+	public void setBackFaceCulling(boolean backFaceCulling)
+	{
+		this.backFaceCulling = backFaceCulling;
+		projectedView = null;
+	}
+	
+	/**
+	 * @return the simplified versions of the mesh of this polyhedron, from finest to coarsest, or null if none have been generated
+	 */
+	public Mesh3D[] getDetailMeshes()
+	{
+		return detailMeshes;
+	}
+	
+	/**
+	 * @return the greatest distance in pixels on the view plane by which the version of the mesh drawn may depart from the mesh
+	 */
+	public double getDetailTolerance()
+	{
+		return detailTolerance;
+	}
+	
+	/**
+	 * @param detailTolerance	the greatest distance in pixels on the view plane by which the version of the mesh drawn may depart from the mesh
+	 */
+	public void setDetailTolerance(double detailTolerance)
+	{
+		this.detailTolerance = detailTolerance;
+		projectedView = null;
+	}
+	
+	/**
+	 * @return the indexed mesh comprising this 3D Polyhedron, in the coordinates it has before the transformation of this instance, which
+	 * may be shared with other instances and so must not be changed in place
+	 */
+	public Mesh3D getMesh()
+	{
+		return mesh;
+	}
+	
+	/**
+	 * @return the transformation from the coordinates of the mesh to the coordinates of this 3D Polyhedron
+	 */
+	public Transform3D getTransform()
+	{
+		return transform;
 	}
 	
 	/**
@@ -126,6 +478,49 @@ public class Polyhedron3D
 	 */
 	public Polygon3D[] getPolys()
 	{
+		if(polygons == null)
+		{
+			polygons = mesh.transform(transform).toPolygons();
+		}
+		
 		return polygons;
 	}
+	
+	/** Returns an instance of the class of this instance with the given mesh placed in space by the given transformation, overridden by
+	 * subclasses so that transforming them keeps their class
+	 * 
+	 * @param mesh	the mesh of the returned instance
+	 * @param transform	the transformation of the returned instance
+	 * @return an instance of the class of this Polyhedron3D
+	 */
+	protected Polyhedron3D create(Mesh3D mesh, Transform3D transform)
+	{
+		return new Polyhedron3D(mesh, transform);
+	}
+	
+	/** Returns an instance sharing the mesh and settings of this instance, placed in space by the given transformation
+	 * 
+	 * @param transform	the transformation of the returned instance
+	 * @return a transformed instance of this Polyhedron3D
+	 */
+	private Polyhedron3D transformed(Transform3D transform)
+	{
+		Polyhedron3D transformed = create(mesh, transform);
+		transformed.backFaceCulling = backFaceCulling;
+		transformed.detailMeshes = detailMeshes;
+		transformed.detailErrors = detailErrors;
+		transformed.detailTolerance = detailTolerance;
+		
+		return transformed;
+	}
+	
+	/** Discards the polygons and projection derived from the previous geometry of this polyhedron
+	 * 
+	 */
+	private void geometryChanged()
+	{
+		polygons = null;
+		boundingSphere = null;
+		projectedView = null;
+	}
 }
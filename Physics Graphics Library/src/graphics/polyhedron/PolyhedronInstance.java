@@ -0,0 +1,177 @@
+package graphics.polyhedron;
+
+import graphics.polygon.Transform3D;
+import graphics.projection.PolyhedronProjection;
+import graphics.projection.View;
+import graphics.projection.ViewTransform;
+
+/** A class representing one placement in space of a polyhedron shared with any number of other placements, holding nothing but its own
+ * transformation so that many copies of the same geometry cost little more memory than one
+ * 
+ * Instances are projected with the buffers of their shared polyhedron, one after another, and their projections are not kept between frames
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class PolyhedronInstance
+{
+	/** The polyhedron placed by this instance */
+	private final Polyhedron3D polyhedron;
+	
+	/** The transformation applied after the transformation of the polyhedron to place it in space */
+	private Transform3D transform;
+	
+	/** Parameterized constructor, initializes this instance to place the given polyhedron where it lies
+	 * 
+	 * @param polyhedron	the polyhedron placed
+	 */
+	public PolyhedronInstance(Polyhedron3D polyhedron)
+	{
+		this(polyhedron, new Transform3D());
+	}
+	
+	/** Parameterized constructor, initializes this instance to place the given polyhedron by the given transformation
+	 * 
+	 * @param polyhedron	the polyhedron placed
+	 * @param transform	the transformation applied after the transformation of the polyhedron
+	 */
+	public PolyhedronInstance(Polyhedron3D polyhedron, Transform3D transform)
+	{
+		this.polyhedron = polyhedron;
+		this.transform = transform;
+	}
+	
+	/** Returns a translated instance of this PolyhedronInstance, placing the same polyhedron
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 * @return a version of this instance translated by given values for x, y, and z
+	 */
+	public PolyhedronInstance translate(double x, double y, double z)
+	{
+		return new PolyhedronInstance(polyhedron, transform.translate(x, y, z));
+	}
+	
+	/** Returns a rotated instance of this PolyhedronInstance rotated about the x-axis, placing the same polyhedron
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated through the given angle about the x-axis
+	 */
+	public PolyhedronInstance rotAboutX(double turnAngle)
+	{
+		return new PolyhedronInstance(polyhedron, transform.rotAboutX(turnAngle));
+	}
+	
+	/** Returns a rotated instance of this PolyhedronInstance rotated about the y-axis, placing the same polyhedron
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated through the given angle about the y-axis
+	 */
+	public PolyhedronInstance rotAboutY(double turnAngle)
+	{
+		return new PolyhedronInstance(polyhedron, transform.rotAboutY(turnAngle));
+	}
+	
+	/** Returns a rotated instance of this PolyhedronInstance rotated about the z-axis, placing the same polyhedron
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated through the given angle about the z-axis
+	 */
+	public PolyhedronInstance rotAboutZ(double turnAngle)
+	{
+		return new PolyhedronInstance(polyhedron, transform.rotAboutZ(turnAngle));
+	}
+	
+	/** Translates this instance in place
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 */
+	public void translateInPlace(double x, double y, double z)
+	{
+		transform.translateInPlace(x, y, z);
+	}
+	
+	/** Rotates this instance in place about the x-axis
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutXInPlace(double turnAngle)
+	{
+		transform.rotAboutXInPlace(turnAngle);
+	}
+	
+	/** Rotates this instance in place about the y-axis
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutYInPlace(double turnAngle)
+	{
+		transform.rotAboutYInPlace(turnAngle);
+	}
+	
+	/** Rotates this instance in place about the z-axis
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 */
+	public void rotAboutZInPlace(double turnAngle)
+	{
+		transform.rotAboutZInPlace(turnAngle);
+	}
+	
+	/** Method returning projection of this instance on to given plane
+	 * 
+	 * @param view	The View that this instance is being looked at from
+	 * @return the Projection object resulting from the projection of this instance on to the view plane
+	 */
+	public PolyhedronProjection getProjection(View view)
+	{
+		return getProjection(view.getTransform());
+	}
+	
+	/** Method returning projection of this instance through the given view transformation, projecting the mesh of the shared polyhedron
+	 * placed by the composition of the transformation of this instance with that of the polyhedron
+	 * 
+	 * @param viewTransform	The ViewTransform of the View that this instance is being looked at from
+	 * @return the Projection object resulting from the projection of this instance on to the view plane of the transformation
+	 */
+	public PolyhedronProjection getProjection(ViewTransform viewTransform)
+	{
+		Transform3D placement = getPlacement();
+		
+		return polyhedron.project(viewTransform, placement, polyhedron.getBoundingSphere(placement), null);
+	}
+	
+	/**
+	 * @return the x, y, and z coordinates of the center of a sphere containing this instance in space followed by its radius
+	 */
+	public double[] getBoundingSphere()
+	{
+		return polyhedron.getBoundingSphere(getPlacement());
+	}
+	
+	/**
+	 * @return the transformation from the coordinates of the mesh of the shared polyhedron to the coordinates of this instance in space
+	 */
+	public Transform3D getPlacement()
+	{
+		return transform.multiply(polyhedron.getTransform());
+	}
+	
+	/**
+	 * @return the polyhedron placed by this instance, shared with other instances
+	 */
+	public Polyhedron3D getPolyhedron()
+	{
+		return polyhedron;
+	}
+	
+	/**
+	 * @return the transformation applied after the transformation of the polyhedron to place it in space
+	 */
+	public Transform3D getTransform()
+	{
+		return transform;
+	}
+}
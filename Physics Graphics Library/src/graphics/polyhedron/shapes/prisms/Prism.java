@@ -1,6 +1,251 @@
 package graphics.polyhedron.shapes.prisms;
 
-public class Prism
-{
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import graphics.polygon.Transform3D;
+import graphics.polyhedron.Mesh3D;
+import graphics.polyhedron.Polyhedron3D;
 
+/** A class representing a right prism in 3D space whose base is a regular polygon, built from one mesh of unit size shared by every prism with the same
+ * number of sides and color and placed by a transformation, so that creating many prisms costs no more than creating their transformations
+ * 
+ * The base of the unit mesh is inscribed in the unit circle about the z-axis with a vertex on the x-axis, and the prism runs from z = 0 to z = 1.
+ * Since the unit meshes are shared, the mesh of a prism must not be changed in place; a prism is moved by its own transformations instead
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class Prism extends Polyhedron3D
+{
+	/** The default color of the faces of a prism */
+	public static final Color DEFAULT_COLOR = Color.LIGHT_GRAY;
+	
+	/** The unit meshes of regular prisms created so far, by number of sides and then by color */
+	private static final HashMap<Integer, HashMap<Color, Mesh3D>> UNIT_MESHES = new HashMap<Integer, HashMap<Color, Mesh3D>>();
+	
+	/** The number of sides of the base of this prism */
+	private final int sides;
+	
+	/** Parameterized constructor, initializes this instance to a regular prism standing on the plane z at the given position
+	 * 
+	 * @param sides	the number of sides of the base
+	 * @param x	the x-coordinate of the center of the base
+	 * @param y	the y-coordinate of the center of the base
+	 * @param z	the z-coordinate of the base
+	 * @param radius	the distance from the center of the base to each of its vertices
+	 * @param length	the distance along the z-axis from the base to the opposite face
+	 */
+	public Prism(int sides, double x, double y, double z, double radius, double length)
+	{
+		this(sides, x, y, z, radius, length, DEFAULT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes this instance to a regular prism of the given color standing on the plane z at the given position
+	 * 
+	 * @param sides	the number of sides of the base
+	 * @param x	the x-coordinate of the center of the base
+	 * @param y	the y-coordinate of the center of the base
+	 * @param z	the z-coordinate of the base
+	 * @param radius	the distance from the center of the base to each of its vertices
+	 * @param length	the distance along the z-axis from the base to the opposite face
+	 * @param color	the color of every face
+	 */
+	public Prism(int sides, double x, double y, double z, double radius, double length, Color color)
+	{
+		this(getUnitMesh(sides, color), placement(x, y, z, radius, radius, length), sides);
+	}
+	
+	/** Parameterized constructor, initializes this instance to the given unit mesh placed in space by the given transformation
+	 * 
+	 * @param unitMesh	the mesh of unit size shared with other prisms of the same shape
+	 * @param transform	the transformation from the coordinates of the unit mesh to the coordinates of this prism, used without being copied
+	 * @param sides	the number of sides of the base of the unit mesh
+	 */
+	protected Prism(Mesh3D unitMesh, Transform3D transform, int sides)
+	{
+		super(unitMesh, transform);
+		this.sides = sides;
+	}
+	
+	/** Returns a translated instance of this prism, sharing its unit mesh
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 * @return a version of this instance translated by given values for x, y, and z
+	 */
+	@Override
+	public Prism translate(double x, double y, double z)
+	{
+		return (Prism) super.translate(x, y, z);
+	}
+	
+	/** Returns a rotated instance of this prism about the x-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the x-axis
+	 */
+	@Override
+	public Prism rotAboutX(double turnAngle)
+	{
+		return (Prism) super.rotAboutX(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this prism about the y-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the y-axis
+	 */
+	@Override
+	public Prism rotAboutY(double turnAngle)
+	{
+		return (Prism) super.rotAboutY(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this prism about the z-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the z-axis
+	 */
+	@Override
+	public Prism rotAboutZ(double turnAngle)
+	{
+		return (Prism) super.rotAboutZ(turnAngle);
+	}
+	
+	@Override
+	protected Prism create(Mesh3D mesh, Transform3D transform)
+	{
+		return new Prism(mesh, transform, sides);
+	}
+	
+	/** Returns the transformation scaling a unit mesh by the given dimensions and then moving its origin to the given position
+	 * 
+	 * @param x	the x-coordinate the origin of the unit mesh is moved to
+	 * @param y	the y-coordinate the origin of the unit mesh is moved to
+	 * @param z	the z-coordinate the origin of the unit mesh is moved to
+	 * @param width	the factor by which x-coordinates are scaled
+	 * @param height	the factor by which y-coordinates are scaled
+	 * @param depth	the factor by which z-coordinates are scaled
+	 * @return the scaling by the dimensions followed by the translation to the position
+	 * @throws IllegalArgumentException if a dimension is not positive and finite, as a negative dimension would mirror the unit mesh
+	 */
+	protected static Transform3D placement(double x, double y, double z, double width, double height, double depth)
+	{
+		if(!(width > 0 && width < Double.POSITIVE_INFINITY) || !(height > 0 && height < Double.POSITIVE_INFINITY)
+				|| !(depth > 0 && depth < Double.POSITIVE_INFINITY))
+		{
+			throw new IllegalArgumentException("Prism dimensions must be positive and finite but were " + width + ", " + height + ", " + depth);
+		}
+		
+		Transform3D transform = new Transform3D();
+		transform.scaleInPlace(width, height, depth);
+		transform.translateInPlace(x, y, z);
+		
+		return transform;
+	}
+	
+	/** Returns the mesh of the prism of unit length over the given base in the plane z = 0, with every face wound counterclockwise seen from outside
+	 * 
+	 * @param baseX	the x-coordinates of the vertices of the base, counterclockwise seen from positive z
+	 * @param baseY	the y-coordinates of the vertices of the base, counterclockwise seen from positive z
+	 * @param color	the color of every face
+	 * @return the mesh of the base extruded from z = 0 to z = 1
+	 */
+	protected static Mesh3D createUnitMesh(double[] baseX, double[] baseY, Color color)
+	{
+		int n = baseX.length;
+		
+		double[] vertices = new double[6*n];
+		
+		for(int i = 0; i < n; i ++)
+		{
+			vertices[3*i] = vertices[3*(n + i)] = baseX[i];
+			vertices[3*i + 1] = vertices[3*(n + i) + 1] = baseY[i];
+			vertices[3*(n + i) + 2] = 1;
+		}
+		
+		int[] faceStarts = new int[n + 3];
+		int[] faceIndices = new int[6*n];
+		int index = 0;
+		
+		/* The base, seen from negative z, and the opposite face, seen from positive z */
+		for(int i = n - 1; i >= 0; i --)
+		{
+			faceIndices[index ++] = i;
+		}
+		faceStarts[1] = index;
+		
+		for(int i = 0; i < n; i ++)
+		{
+			faceIndices[index ++] = n + i;
+		}
+		faceStarts[2] = index;
+		
+		for(int i = 0; i < n; i ++)
+		{
+			int next = (i + 1) % n;
+			
+			faceIndices[index ++] = i;
+			faceIndices[index ++] = next;
+			faceIndices[index ++] = n + next;
+			faceIndices[index ++] = n + i;
+			faceStarts[i + 3] = index;
+		}
+		
+		Color[] colors = new Color[n + 2];
+		Arrays.fill(colors, color);
+		
+		return new Mesh3D(vertices, faceStarts, faceIndices, colors);
+	}
+	
+	/** Returns the unit mesh of the regular prism with the given number of sides and color, creating it the first time it is requested
+	 * 
+	 * @param sides	the number of sides of the base
+	 * @param color	the color of every face
+	 * @return the unit mesh shared by every such prism
+	 */
+	private static synchronized Mesh3D getUnitMesh(int sides, Color color)
+	{
+		if(sides < 3)
+		{
+			throw new IllegalArgumentException("A prism must have at least 3 sides but was given " + sides);
+		}
+		
+		HashMap<Color, Mesh3D> meshes = UNIT_MESHES.get(sides);
+		
+		if(meshes == null)
+		{
+			meshes = new HashMap<Color, Mesh3D>();
+			UNIT_MESHES.put(sides, meshes);
+		}
+		
+		Mesh3D mesh = meshes.get(color);
+		
+		if(mesh == null)
+		{
+			double[] baseX = new double[sides];
+			double[] baseY = new double[sides];
+			
+			for(int i = 0; i < sides; i ++)
+			{
+				baseX[i] = Math.cos(2*Math.PI*i/sides);
+				baseY[i] = Math.sin(2*Math.PI*i/sides);
+			}
+			
+			mesh = createUnitMesh(baseX, baseY, color);
+			meshes.put(color, mesh);
+		}
+		
+		return mesh;
+	}
+	
+	/**
+	 * @return the number of sides of the base of this prism
+	 */
+	public int getSides()
+	{
+		return sides;
+	}
 }
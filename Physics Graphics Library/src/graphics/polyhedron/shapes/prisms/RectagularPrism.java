@@ -1,6 +1,126 @@
 package graphics.polyhedron.shapes.prisms;
 
+import java.awt.Color;
+import java.util.HashMap;
+
+import graphics.polygon.Transform3D;
+import graphics.polyhedron.Mesh3D;
+
+/** A class representing a box in 3D space with faces parallel to the axes, built from one unit cube shared by every box of the same color
+ * 
+ * @author Benjamin Cohen-Wang
+ */
 public class RectagularPrism extends Prism
 {
-
+	/** The unit cubes created so far, by color */
+	private static final HashMap<Color, Mesh3D> UNIT_MESHES = new HashMap<Color, Mesh3D>();
+	
+	/** Parameterized constructor, initializes this instance to the box with the given corner and dimensions
+	 * 
+	 * @param x	the x-coordinate of the corner nearest negative infinity on every axis
+	 * @param y	the y-coordinate of the corner nearest negative infinity on every axis
+	 * @param z	the z-coordinate of the corner nearest negative infinity on every axis
+	 * @param width	the length of the box along the x-axis
+	 * @param height	the length of the box along the y-axis
+	 * @param depth	the length of the box along the z-axis
+	 */
+	public RectagularPrism(double x, double y, double z, double width, double height, double depth)
+	{
+		this(x, y, z, width, height, depth, DEFAULT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes this instance to the box of the given color with the given corner and dimensions
+	 * 
+	 * @param x	the x-coordinate of the corner nearest negative infinity on every axis
+	 * @param y	the y-coordinate of the corner nearest negative infinity on every axis
+	 * @param z	the z-coordinate of the corner nearest negative infinity on every axis
+	 * @param width	the length of the box along the x-axis
+	 * @param height	the length of the box along the y-axis
+	 * @param depth	the length of the box along the z-axis
+	 * @param color	the color of every face
+	 */
+	public RectagularPrism(double x, double y, double z, double width, double height, double depth, Color color)
+	{
+		super(getUnitMesh(color), placement(x, y, z, width, height, depth), 4);
+	}
+	
+	/** Parameterized constructor, initializes this instance to the given unit mesh placed in space by the given transformation
+	 * 
+	 * @param unitMesh	the unit mesh shared with other instances of the same color
+	 * @param transform	the transformation from the coordinates of the unit mesh to the coordinates of this instance, used without being copied
+	 */
+	private RectagularPrism(Mesh3D unitMesh, Transform3D transform)
+	{
+		super(unitMesh, transform, 4);
+	}
+	
+	/** Returns a translated instance of this box, sharing its unit mesh
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 * @return a version of this instance translated by given values for x, y, and z
+	 */
+	@Override
+	public RectagularPrism translate(double x, double y, double z)
+	{
+		return (RectagularPrism) super.translate(x, y, z);
+	}
+	
+	/** Returns a rotated instance of this box about the x-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the x-axis
+	 */
+	@Override
+	public RectagularPrism rotAboutX(double turnAngle)
+	{
+		return (RectagularPrism) super.rotAboutX(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this box about the y-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the y-axis
+	 */
+	@Override
+	public RectagularPrism rotAboutY(double turnAngle)
+	{
+		return (RectagularPrism) super.rotAboutY(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this box about the z-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the z-axis
+	 */
+	@Override
+	public RectagularPrism rotAboutZ(double turnAngle)
+	{
+		return (RectagularPrism) super.rotAboutZ(turnAngle);
+	}
+	
+	@Override
+	protected RectagularPrism create(Mesh3D mesh, Transform3D transform)
+	{
+		return new RectagularPrism(mesh, transform);
+	}
+	
+	/** Returns the unit cube of the given color, from the origin to (1, 1, 1), creating it the first time it is requested
+	 * 
+	 * @param color	the color of every face
+	 * @return the unit cube shared by every box of the color
+	 */
+	private static synchronized Mesh3D getUnitMesh(Color color)
+	{
+		Mesh3D mesh = UNIT_MESHES.get(color);
+		
+		if(mesh == null)
+		{
+			mesh = createUnitMesh(new double[] {0, 1, 1, 0}, new double[] {0, 0, 1, 1}, color);
+			UNIT_MESHES.put(color, mesh);
+		}
+		
+		return mesh;
+	}
 }
@@ -1,6 +1,128 @@
 package graphics.polyhedron.shapes.prisms;
 
+import java.awt.Color;
+import java.util.HashMap;
+
+import graphics.polygon.Transform3D;
+import graphics.polyhedron.Mesh3D;
+
+/** A class representing a prism in 3D space over an isosceles triangle, built from one unit mesh shared by every such prism of the same color
+ * 
+ * The triangle of the unit mesh has its vertices at (0, 0), (1, 0) and (0.5, 1) in the plane z = 0, and the prism runs from z = 0 to z = 1
+ * 
+ * @author Benjamin Cohen-Wang
+ */
 public class TriangularPrism extends Prism
 {
-
+	/** The unit triangular prisms created so far, by color */
+	private static final HashMap<Color, Mesh3D> UNIT_MESHES = new HashMap<Color, Mesh3D>();
+	
+	/** Parameterized constructor, initializes this instance to the prism within the box with the given corner and dimensions
+	 * 
+	 * @param x	the x-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param y	the y-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param z	the z-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param width	the length of the base of the triangle along the x-axis
+	 * @param height	the height of the triangle along the y-axis
+	 * @param depth	the length of the prism along the z-axis
+	 */
+	public TriangularPrism(double x, double y, double z, double width, double height, double depth)
+	{
+		this(x, y, z, width, height, depth, DEFAULT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes this instance to the prism of the given color within the box with the given corner and dimensions
+	 * 
+	 * @param x	the x-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param y	the y-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param z	the z-coordinate of the corner of the bounding box nearest negative infinity on every axis
+	 * @param width	the length of the base of the triangle along the x-axis
+	 * @param height	the height of the triangle along the y-axis
+	 * @param depth	the length of the prism along the z-axis
+	 * @param color	the color of every face
+	 */
+	public TriangularPrism(double x, double y, double z, double width, double height, double depth, Color color)
+	{
+		super(getUnitMesh(color), placement(x, y, z, width, height, depth), 3);
+	}
+	
+	/** Parameterized constructor, initializes this instance to the given unit mesh placed in space by the given transformation
+	 * 
+	 * @param unitMesh	the unit mesh shared with other instances of the same color
+	 * @param transform	the transformation from the coordinates of the unit mesh to the coordinates of this instance, used without being copied
+	 */
+	private TriangularPrism(Mesh3D unitMesh, Transform3D transform)
+	{
+		super(unitMesh, transform, 3);
+	}
+	
+	/** Returns a translated instance of this prism, sharing its unit mesh
+	 * 
+	 * @param x	the x-coordinate translated by
+	 * @param y	the y-coordinate translated by
+	 * @param z	the z-coordinate translated by
+	 * @return a version of this instance translated by given values for x, y, and z
+	 */
+	@Override
+	public TriangularPrism translate(double x, double y, double z)
+	{
+		return (TriangularPrism) super.translate(x, y, z);
+	}
+	
+	/** Returns a rotated instance of this prism about the x-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the x-axis
+	 */
+	@Override
+	public TriangularPrism rotAboutX(double turnAngle)
+	{
+		return (TriangularPrism) super.rotAboutX(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this prism about the y-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the y-axis
+	 */
+	@Override
+	public TriangularPrism rotAboutY(double turnAngle)
+	{
+		return (TriangularPrism) super.rotAboutY(turnAngle);
+	}
+	
+	/** Returns a rotated instance of this prism about the z-axis through the given angle, sharing its unit mesh
+	 * 
+	 * @param turnAngle	the angle rotated through
+	 * @return a version of this instance rotated the given angle about the z-axis
+	 */
+	@Override
+	public TriangularPrism rotAboutZ(double turnAngle)
+	{
+		return (TriangularPrism) super.rotAboutZ(turnAngle);
+	}
+	
+	@Override
+	protected TriangularPrism create(Mesh3D mesh, Transform3D transform)
+	{
+		return new TriangularPrism(mesh, transform);
+	}
+	
+	/** Returns the unit triangular prism of the given color, creating it the first time it is requested
+	 * 
+	 * @param color	the color of every face
+	 * @return the unit triangular prism shared by every such prism of the color
+	 */
+	private static synchronized Mesh3D getUnitMesh(Color color)
+	{
+		Mesh3D mesh = UNIT_MESHES.get(color);
+		
+		if(mesh == null)
+		{
+			mesh = createUnitMesh(new double[] {0, 1, 0.5}, new double[] {0, 0, 1}, color);
+			UNIT_MESHES.put(color, mesh);
+		}
+		
+		return mesh;
+	}
 }
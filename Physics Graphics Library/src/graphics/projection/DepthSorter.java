@@ -0,0 +1,225 @@
+package graphics.projection;
+
+import java.util.Arrays;
+
+/** A class ordering polygon projections by priority with a least significant digit radix sort over the bits of the priorities,
+ * keeping its buffers between sorts so that sorting a frame allocates nothing once the buffers have grown to the size of the scene
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class DepthSorter
+{
+	/** The number of bits of a key sorted by each pass */
+	private static final int DIGIT_BITS = 8;
+	
+	/** The number of distinct values of a digit */
+	private static final int RADIX = 1 << DIGIT_BITS;
+	
+	/** The number of passes needed to sort by every bit of a key */
+	private static final int PASSES = 64/DIGIT_BITS;
+	
+	/** The average number of places each item may move while repairing the previous order before a full sort is done instead */
+	private static final int MAX_MOVES_PER_ITEM = 4;
+	
+	/** The keys of the items being sorted, in the order of the current pass */
+	private long[] keys = new long[0];
+	
+	/** The keys of the items being sorted, in the order of the next pass */
+	private long[] keyScratch = new long[0];
+	
+	/** The indices of the items being sorted, in the order of the current pass */
+	private int[] order = new int[0];
+	
+	/** The indices of the items being sorted, in the order of the next pass */
+	private int[] orderScratch = new int[0];
+	
+	/** The number of keys with each value of each digit, created by the first sort */
+	private int[][] counts;
+	
+	/** The number of items ordered by the previous sort, whose order is kept in the order array */
+	private int sortedCount = -1;
+	
+	/** Returns the indices of the given projections in order of increasing priority, projections of equal priority keeping their relative order
+	 * 
+	 * @param projections	the projections sorted
+	 * @param count	the number of projections, starting from the first, sorted
+	 * @return an array whose first count elements are the sorted indices, reused by the next sort
+	 */
+	public int[] sort(PolygonProjection[] projections, int count)
+	{
+		ensureCapacity(count);
+		
+		for(int i = 0; i < count; i ++)
+		{
+			keys[i] = toKey(projections[i].getPriority());
+		}
+		
+		return sortKeys(count);
+	}
+	
+	/** Returns the indices of the given projections in order of increasing priority, starting from the order found by the previous sort
+	 * and repairing it with an insertion sort, which takes close to linear time when the priorities have barely changed since; a full
+	 * sort is done instead if the number of projections has changed or the previous order turns out to be far from sorted
+	 * 
+	 * @param projections	the projections sorted, each at the same index as the projection of the same polygon in the previous sort
+	 * @param count	the number of projections, starting from the first, sorted
+	 * @return an array whose first count elements are the sorted indices, reused by the next sort
+	 */
+	public int[] sortCoherent(PolygonProjection[] projections, int count)
+	{
+		if(count != sortedCount)
+		{
+			return sort(projections, count);
+		}
+		
+		for(int i = 0; i < count; i ++)
+		{
+			keys[i] = toKey(projections[order[i]].getPriority());
+		}
+		
+		int moves = 0;
+		int maxMoves = MAX_MOVES_PER_ITEM*count;
+		
+		for(int i = 1; i < count; i ++)
+		{
+			long key = keys[i];
+			int index = order[i];
+			int j = i - 1;
+			
+			while(j >= 0 && Long.compareUnsigned(keys[j], key) > 0)
+			{
+				keys[j + 1] = keys[j];
+				order[j + 1] = order[j];
+				j --;
+			}
+			
+			keys[j + 1] = key;
+			order[j + 1] = index;
+			
+			moves += i - 1 - j;
+			if(moves > maxMoves)
+			{
+				return sort(projections, count);
+			}
+		}
+		
+		return order;
+	}
+	
+	/** Returns the indices of the given priorities in increasing order, equal priorities keeping their relative order
+	 * 
+	 * @param priorities	the priorities sorted
+	 * @param count	the number of priorities, starting from the first, sorted
+	 * @return an array whose first count elements are the sorted indices, reused by the next sort
+	 */
+	public int[] sort(double[] priorities, int count)
+	{
+		ensureCapacity(count);
+		
+		for(int i = 0; i < count; i ++)
+		{
+			keys[i] = toKey(priorities[i]);
+		}
+		
+		return sortKeys(count);
+	}
+	
+	/** Sorts the indices of the first count keys by the keys, one digit at a time from the least significant
+	 * 
+	 * @param count	the number of keys sorted
+	 * @return an array whose first count elements are the sorted indices
+	 */
+	private int[] sortKeys(int count)
+	{
+		sortedCount = count;
+		
+		if(counts == null)
+		{
+			counts = new int[PASSES][RADIX];
+		}
+		for(int pass = 0; pass < PASSES; pass ++)
+		{
+			Arrays.fill(counts[pass], 0);
+		}
+		
+		for(int i = 0; i < count; i ++)
+		{
+			order[i] = i;
+			
+			long key = keys[i];
+			for(int pass = 0; pass < PASSES; pass ++)
+			{
+				counts[pass][(int) (key >>> (pass*DIGIT_BITS)) & (RADIX - 1)] ++;
+			}
+		}
+		
+		for(int pass = 0; pass < PASSES; pass ++)
+		{
+			int[] digitCounts = counts[pass];
+			int shift = pass*DIGIT_BITS;
+			
+			/* Skips digits shared by every key, such as the sign and exponent bits of priorities of similar magnitude */
+			if(count == 0 || digitCounts[(int) (keys[0] >>> shift) & (RADIX - 1)] == count)
+			{
+				continue;
+			}
+			
+			int offset = 0;
+			for(int digit = 0; digit < RADIX; digit ++)
+			{
+				int digitCount = digitCounts[digit];
+				digitCounts[digit] = offset;
+				offset += digitCount;
+			}
+			
+			for(int i = 0; i < count; i ++)
+			{
+				long key = keys[i];
+				int destination = digitCounts[(int) (key >>> shift) & (RADIX - 1)] ++;
+				
+				keyScratch[destination] = key;
+				orderScratch[destination] = order[i];
+			}
+			
+			long[] swapKeys = keys;
+			keys = keyScratch;
+			keyScratch = swapKeys;
+			
+			int[] swapOrder = order;
+			order = orderScratch;
+			orderScratch = swapOrder;
+		}
+		
+		return order;
+	}
+	
+	/** Grows the buffers of this sorter to hold at least the given number of items
+	 * 
+	 * @param count	the number of items the buffers must hold
+	 */
+	private void ensureCapacity(int count)
+	{
+		if(keys.length < count)
+		{
+			int capacity = Math.max(count, 2*keys.length);
+			
+			keys = new long[capacity];
+			keyScratch = new long[capacity];
+			order = new int[capacity];
+			orderScratch = new int[capacity];
+		}
+	}
+	
+	/** Returns a key whose unsigned order is the numeric order of the given value
+	 * 
+	 * @param value	the value converted
+	 * @return the bits of the value with the sign bit flipped if it is positive and every bit flipped if it is negative
+	 */
+	private static long toKey(double value)
+	{
+		/* Adding zero turns negative zero in to positive zero so the two are ordered as equal */
+		long bits = Double.doubleToLongBits(value + 0.0);
+		
+		return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+	}
+}
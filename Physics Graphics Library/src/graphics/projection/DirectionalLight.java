@@ -0,0 +1,86 @@
+package graphics.projection;
+
+import graphics.polygon.Point3D;
+
+/** A class representing a light shining in a single direction throughout space, such as sunlight
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class DirectionalLight
+{
+	/** The x-component of the unit direction in which the light travels */
+	private final double x;
+	
+	/** The y-component of the unit direction in which the light travels */
+	private final double y;
+	
+	/** The z-component of the unit direction in which the light travels */
+	private final double z;
+	
+	/** The fraction of full brightness given to a polygon facing directly against this light */
+	private final double intensity;
+	
+	/** Parameterized constructor, initializes this light to travel in the given direction with the given intensity
+	 * 
+	 * @param direction	the direction in which the light travels, of any length
+	 * @param intensity	the fraction of full brightness given to a polygon facing directly against the light
+	 */
+	public DirectionalLight(Point3D direction, double intensity)
+	{
+		this(direction.getX(), direction.getY(), direction.getZ(), intensity);
+	}
+	
+	/** Parameterized constructor, initializes this light to travel in the given direction with the given intensity
+	 * 
+	 * @param x	the x-component of the direction in which the light travels
+	 * @param y	the y-component of the direction in which the light travels
+	 * @param z	the z-component of the direction in which the light travels
+	 * @param intensity	the fraction of full brightness given to a polygon facing directly against the light
+	 */
+	public DirectionalLight(double x, double y, double z, double intensity)
+	{
+		double length = Math.sqrt(x*x + y*y + z*z);
+		
+		if(length == 0 || Double.isNaN(length))
+		{
+			throw new IllegalArgumentException("Light direction must not be zero");
+		}
+		
+		this.x = x/length;
+		this.y = y/length;
+		this.z = z/length;
+		this.intensity = intensity;
+	}
+	
+	/**
+	 * @return the x-component of the unit direction in which the light travels
+	 */
+	public double getX()
+	{
+		return x;
+	}
+	
+	/**
+	 * @return the y-component of the unit direction in which the light travels
+	 */
+	public double getY()
+	{
+		return y;
+	}
+	
+	/**
+	 * @return the z-component of the unit direction in which the light travels
+	 */
+	public double getZ()
+	{
+		return z;
+	}
+	
+	/**
+	 * @return the fraction of full brightness given to a polygon facing directly against this light
+	 */
+	public double getIntensity()
+	{
+		return intensity;
+	}
+}
@@ -0,0 +1,332 @@
+package graphics.projection;
+
+import java.util.Arrays;
+
+/** A class representing a buffer holding, for every pixel of a view, the identifier of the projection last drawn over it, so that the
+ * projection seen at a point such as the cursor is found by a single lookup however many projections are drawn
+ * 
+ * Identifiers are given to projections in the order they are added after the buffer is cleared, starting from zero
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class IdBuffer
+{
+	/** The identifier of the pixels over which nothing has been drawn */
+	public static final int NONE = -1;
+	
+	/** The width of the buffer */
+	private final int width;
+	
+	/** The height of the buffer */
+	private final int height;
+	
+	/** The identifier of the projection drawn over each pixel, one row after another */
+	private final int[] ids;
+	
+	/** The projections given identifiers, indexed by identifier */
+	private PolygonProjection[] projections;
+	
+	/** The number of projections given identifiers */
+	private int projectionCount;
+	
+	/** The x-coordinates at which the outline of the projection being filled crosses the center of the row being filled */
+	private double[] crossings;
+	
+	/** Parameterized constructor, initializes this buffer to the given size with nothing drawn
+	 * 
+	 * @param width	the width of the buffer
+	 * @param height	the height of the buffer
+	 */
+	public IdBuffer(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		this.ids = new int[width*height];
+		this.projections = new PolygonProjection[16];
+		this.crossings = new double[16];
+		
+		Arrays.fill(ids, NONE);
+	}
+	
+	/** Forgets every projection drawn and every identifier given
+	 * 
+	 */
+	public void clear()
+	{
+		Arrays.fill(ids, NONE);
+		Arrays.fill(projections, 0, projectionCount, null);
+		projectionCount = 0;
+	}
+	
+	/** Gives the given projection the next identifier
+	 * 
+	 * @param projection	the projection given an identifier
+	 * @return the identifier of the projection
+	 */
+	public int add(PolygonProjection projection)
+	{
+		if(projectionCount == projections.length)
+		{
+			projections = Arrays.copyOf(projections, 2*projections.length);
+		}
+		
+		projections[projectionCount] = projection;
+		
+		return projectionCount ++;
+	}
+	
+	/** Gives the given projection the next identifier and writes it over every pixel whose center lies inside of the projection and
+	 * every pixel of its outline, as the projection is filled and outlined when drawn on a Graphics object
+	 * 
+	 * @param projection	the projection filled
+	 * @return the identifier of the projection
+	 */
+	public int fill(PolygonProjection projection)
+	{
+		int id = add(projection);
+		int pointCount = projection.getPointCount();
+		
+		if(pointCount < 3)
+		{
+			return id;
+		}
+		
+		if(crossings.length < pointCount)
+		{
+			crossings = new double[Math.max(pointCount, 2*crossings.length)];
+		}
+		
+		int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+		
+		for(int i = 0; i < pointCount; i ++)
+		{
+			minY = Math.min(minY, projection.getYPixel(i));
+			maxY = Math.max(maxY, projection.getYPixel(i));
+		}
+		
+		for(int y = Math.max(0, minY); y <= Math.min(height - 1, maxY); y ++)
+		{
+			double yCenter = y + 0.5;
+			int crossingCount = 0;
+			
+			/* Drawn with its points truncated to whole pixels */
+			for(int i = 0, previous = pointCount - 1; i < pointCount; previous = i ++)
+			{
+				int xCurrent = projection.getXPixel(i);
+				int yCurrent = projection.getYPixel(i);
+				int xPrevious = projection.getXPixel(previous);
+				int yPrevious = projection.getYPixel(previous);
+				
+				if((yCurrent > yCenter) != (yPrevious > yCenter))
+				{
+					crossings[crossingCount ++] = xCurrent + ((double) xPrevious - xCurrent)*(yCenter - yCurrent)/((double) yPrevious - yCurrent);
+				}
+			}
+			
+			Arrays.sort(crossings, 0, crossingCount);
+			
+			/* Fills the pixels whose centers lie between each pair of crossings */
+			for(int i = 0; i + 1 < crossingCount; i += 2)
+			{
+				int left = (int) Math.max(0, Math.ceil(crossings[i] - 0.5));
+				int right = (int) Math.min(width, Math.ceil(crossings[i + 1] - 0.5));
+				
+				/* Skips spans lying entirely off either side of the buffer, or covering no pixel center */
+				if(left < right)
+				{
+					Arrays.fill(ids, y*width + left, y*width + right, id);
+				}
+			}
+		}
+		
+		for(int i = 0, previous = pointCount - 1; i < pointCount; previous = i ++)
+		{
+			drawLine(projection.getXPixel(previous), projection.getYPixel(previous), projection.getXPixel(i), projection.getYPixel(i), id);
+		}
+		
+		return id;
+	}
+	
+	/** Writes the given identifier over the pixels of the line between the given pixels lying within this buffer, stepping along its
+	 * longer axis by Bresenham's algorithm from the first pixel that may lie within this buffer to the last
+	 * 
+	 * @param x0	the x-coordinate of the start of the line
+	 * @param y0	the y-coordinate of the start of the line
+	 * @param x1	the x-coordinate of the end of the line
+	 * @param y1	the y-coordinate of the end of the line
+	 * @param id	the identifier written
+	 */
+	private void drawLine(int x0, int y0, int x1, int y1, int id)
+	{
+		if((x0 < 0 && x1 < 0) || (x0 >= width && x1 >= width) || (y0 < 0 && y1 < 0) || (y0 >= height && y1 >= height))
+		{
+			return;
+		}
+		
+		long xDist = Math.abs((long) x1 - x0);
+		long yDist = Math.abs((long) y1 - y0);
+		int xStep = x1 > x0 ? 1 : -1;
+		int yStep = y1 > y0 ? 1 : -1;
+		long steps = Math.max(xDist, yDist);
+		
+		/* The line is clipped to this buffer widened by half a pixel, and only the steps of the clipped line are taken, one further at
+		 * each end absorbing rounding error */
+		double enter = 0;
+		double exit = 1;
+		
+		if(xDist != 0)
+		{
+			double a = (-0.5 - x0)/(x1 - (double) x0);
+			double b = (width - 0.5 - x0)/(x1 - (double) x0);
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(yDist != 0)
+		{
+			double a = (-0.5 - y0)/(y1 - (double) y0);
+			double b = (height - 0.5 - y0)/(y1 - (double) y0);
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(enter > exit)
+		{
+			return;
+		}
+		
+		long first = Math.max(0, (long) Math.floor(enter*steps) - 1);
+		long last = Math.min(steps, (long) Math.ceil(exit*steps) + 1);
+		
+		/* Every step moves one pixel along the longer axis, and the error term is fixed by the steps taken along each axis, so the
+		 * algorithm is started at the first step by estimating the steps along the shorter axis and correcting them until the error lies
+		 * in the range the algorithm keeps it in; the error is small though its terms may overflow, so wrapping arithmetic gives it exactly */
+		long xSteps;
+		long ySteps;
+		long error;
+		
+		if(xDist >= yDist)
+		{
+			xSteps = first;
+			ySteps = xDist == 0 ? 0 : (long) ((double) first*yDist/xDist);
+			error = xDist - yDist + ySteps*xDist - xSteps*yDist;
+			
+			/* A line of a single pixel starts, and ends, with no error */
+			while(xDist != 0 && 2*error > 3*xDist - 2*yDist - 1)
+			{
+				ySteps --;
+				error -= xDist;
+			}
+			while(2*error <= xDist - 2*yDist - 1)
+			{
+				ySteps ++;
+				error += xDist;
+			}
+		}
+		else
+		{
+			ySteps = first;
+			xSteps = (long) ((double) first*xDist/yDist);
+			error = xDist - yDist + ySteps*xDist - xSteps*yDist;
+			
+			while(2*error < 2*xDist - 3*yDist + 1)
+			{
+				xSteps --;
+				error += yDist;
+			}
+			while(2*error > 2*xDist - yDist)
+			{
+				xSteps ++;
+				error -= yDist;
+			}
+		}
+		
+		long x = x0 + xStep*xSteps;
+		long y = y0 + yStep*ySteps;
+		
+		for(long i = first; i <= last; i ++)
+		{
+			if(x >= 0 && y >= 0 && x < width && y < height)
+			{
+				ids[(int) y*width + (int) x] = id;
+			}
+			
+			long doubleError = 2*error;
+			
+			if(doubleError > -yDist)
+			{
+				error -= yDist;
+				x += xStep;
+			}
+			if(doubleError < xDist)
+			{
+				error += xDist;
+				y += yStep;
+			}
+		}
+	}
+	
+	/** Returns the identifier of the projection last drawn over the given pixel
+	 * 
+	 * @param x	the x-coordinate of the pixel
+	 * @param y	the y-coordinate of the pixel
+	 * @return the identifier of the projection, or NONE if nothing has been drawn over the pixel or it lies outside of the buffer
+	 */
+	public int getId(int x, int y)
+	{
+		if(x < 0 || y < 0 || x >= width || y >= height)
+		{
+			return NONE;
+		}
+		
+		return ids[y*width + x];
+	}
+	
+	/** Returns the projection last drawn over the pixel holding the given point
+	 * 
+	 * @param coord	the point picked, such as the location of the cursor
+	 * @return the projection drawn over the point, or null if nothing has been drawn over it
+	 */
+	public PolygonProjection pick(Point2D coord)
+	{
+		int id = getId((int) Math.floor(coord.getX()), (int) Math.floor(coord.getY()));
+		
+		return id == NONE ? null : projections[id];
+	}
+	
+	/**
+	 * @param id	an identifier given by this buffer
+	 * @return the projection with the given identifier
+	 */
+	public PolygonProjection getProjection(int id)
+	{
+		if(id < 0 || id >= projectionCount)
+		{
+			throw new IllegalArgumentException("No projection has the identifier " + id);
+		}
+		
+		return projections[id];
+	}
+	
+	/**
+	 * @return the identifiers of the projections drawn over each pixel, one row after another, which are written to directly when drawing
+	 */
+	public int[] getIds()
+	{
+		return ids;
+	}
+	
+	/**
+	 * @return the width of the buffer
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return the height of the buffer
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+}
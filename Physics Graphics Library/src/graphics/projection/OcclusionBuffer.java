@@ -0,0 +1,331 @@
+package graphics.projection;
+
+import java.util.Arrays;
+
+/** A class representing a coarse record of which parts of a rectangle of the view plane are hidden by projections already drawn, used to
+ * discard projections lying entirely behind nearer ones; projections are assumed to be convex
+ * 
+ * The rectangle is divided in to square cells, each holding the smallest perspective scale of the nearest projection covering the whole of
+ * it, so that everything seen in the cell is at least that near, and the cells are grouped in to square tiles holding the smallest value of
+ * their cells so that large hidden areas are tested at once
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class OcclusionBuffer
+{
+	/** The width and height in pixels of each cell */
+	private static final int CELL_SIZE = 8;
+	
+	/** The width and height in cells of each tile */
+	private static final int TILE_CELLS = 8;
+	
+	/** The x-coordinate of the left edge of the rectangle recorded */
+	private final double xOrigin;
+	
+	/** The y-coordinate of the top edge of the rectangle recorded */
+	private final double yOrigin;
+	
+	/** The width of the rectangle recorded */
+	private final int width;
+	
+	/** The height of the rectangle recorded */
+	private final int height;
+	
+	/** The number of columns of cells */
+	private final int columns;
+	
+	/** The number of rows of cells */
+	private final int rows;
+	
+	/** The number of columns of tiles */
+	private final int tileColumns;
+	
+	/** The number of rows of tiles */
+	private final int tileRows;
+	
+	/** The perspective scale nearer than which everything in each cell is seen, zero where a cell is not wholly covered */
+	private final float[] cellDepths;
+	
+	/** The smallest perspective scale of the cells of each tile */
+	private final float[] tileDepths;
+	
+	/** Parameterized constructor, initializes this instance to record the rectangle of the view plane of the given size at the origin
+	 * 
+	 * @param width	the width of the rectangle recorded
+	 * @param height	the height of the rectangle recorded
+	 */
+	public OcclusionBuffer(int width, int height)
+	{
+		this(0, 0, width, height);
+	}
+	
+	/** Parameterized constructor, initializes this instance to record the given rectangle of the view plane, with nothing hidden
+	 * 
+	 * @param x	the x-coordinate of the left edge of the rectangle
+	 * @param y	the y-coordinate of the top edge of the rectangle
+	 * @param width	the width of the rectangle
+	 * @param height	the height of the rectangle
+	 */
+	public OcclusionBuffer(double x, double y, int width, int height)
+	{
+		if(width < 0 || height < 0)
+		{
+			throw new IllegalArgumentException("Occlusion buffer size must not be negative");
+		}
+		
+		xOrigin = x;
+		yOrigin = y;
+		this.width = width;
+		this.height = height;
+		columns = (width + CELL_SIZE - 1)/CELL_SIZE;
+		rows = (height + CELL_SIZE - 1)/CELL_SIZE;
+		tileColumns = (columns + TILE_CELLS - 1)/TILE_CELLS;
+		tileRows = (rows + TILE_CELLS - 1)/TILE_CELLS;
+		cellDepths = new float[columns*rows];
+		tileDepths = new float[tileColumns*tileRows];
+	}
+	
+	/** Forgets every projection recorded, so that nothing is hidden
+	 * 
+	 */
+	public void clear()
+	{
+		Arrays.fill(cellDepths, 0);
+		Arrays.fill(tileDepths, 0);
+	}
+	
+	/** Returns whether the given projection may be seen in front of the projections recorded, testing every cell its bounds overlap; a
+	 * projection extending beyond the rectangle recorded is always visible
+	 * 
+	 * @param projection	the projection tested
+	 * @return false if every cell the projection may cover is covered by projections nearer than its nearest point
+	 */
+	public boolean isVisible(PolygonProjection projection)
+	{
+		int pointCount = projection.getPointCount();
+		
+		if(pointCount == 0)
+		{
+			return false;
+		}
+		
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		double maxScale = 0;
+		
+		for(int i = 0; i < pointCount; i ++)
+		{
+			minX = Math.min(minX, projection.getX(i));
+			minY = Math.min(minY, projection.getY(i));
+			maxX = Math.max(maxX, projection.getX(i));
+			maxY = Math.max(maxY, projection.getY(i));
+			maxScale = Math.max(maxScale, projection.getScale(i));
+		}
+		
+		/* The parts of the projection outside of the rectangle are never hidden */
+		if(!(minX >= xOrigin && minY >= yOrigin && maxX < xOrigin + columns*CELL_SIZE && maxY < yOrigin + rows*CELL_SIZE))
+		{
+			return true;
+		}
+		
+		int firstColumn = (int) ((minX - xOrigin)/CELL_SIZE);
+		int firstRow = (int) ((minY - yOrigin)/CELL_SIZE);
+		int lastColumn = (int) ((maxX - xOrigin)/CELL_SIZE);
+		int lastRow = (int) ((maxY - yOrigin)/CELL_SIZE);
+		
+		for(int tileRow = firstRow/TILE_CELLS; tileRow <= lastRow/TILE_CELLS; tileRow ++)
+		{
+			for(int tileColumn = firstColumn/TILE_CELLS; tileColumn <= lastColumn/TILE_CELLS; tileColumn ++)
+			{
+				/* Every cell of the tile is nearer than the projection */
+				if(tileDepths[tileRow*tileColumns + tileColumn] > maxScale)
+				{
+					continue;
+				}
+				
+				int rowEnd = Math.min(lastRow, (tileRow + 1)*TILE_CELLS - 1);
+				int columnEnd = Math.min(lastColumn, (tileColumn + 1)*TILE_CELLS - 1);
+				
+				for(int row = Math.max(firstRow, tileRow*TILE_CELLS); row <= rowEnd; row ++)
+				{
+					for(int column = Math.max(firstColumn, tileColumn*TILE_CELLS); column <= columnEnd; column ++)
+					{
+						if(cellDepths[row*columns + column] <= maxScale)
+						{
+							return true;
+						}
+					}
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/** Records the given projection as hiding whatever lies behind it in the cells it wholly covers
+	 * 
+	 * @param projection	the projection recorded
+	 */
+	public void addOccluder(PolygonProjection projection)
+	{
+		int pointCount = projection.getPointCount();
+		
+		if(pointCount < 3)
+		{
+			return;
+		}
+		
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		double minScale = Double.POSITIVE_INFINITY;
+		double area = 0;
+		
+		for(int i = 0; i < pointCount; i ++)
+		{
+			int next = (i + 1) % pointCount;
+			
+			minX = Math.min(minX, projection.getX(i));
+			minY = Math.min(minY, projection.getY(i));
+			maxX = Math.max(maxX, projection.getX(i));
+			maxY = Math.max(maxY, projection.getY(i));
+			minScale = Math.min(minScale, projection.getScale(i));
+			area += projection.getX(i)*projection.getY(next) - projection.getX(next)*projection.getY(i);
+		}
+		
+		if(area == 0 || Double.isNaN(area))
+		{
+			return;
+		}
+		
+		/* Only the cells lying wholly inside of the projection are covered */
+		int firstColumn = (int) Math.max(0, Math.ceil((minX - xOrigin)/CELL_SIZE));
+		int firstRow = (int) Math.max(0, Math.ceil((minY - yOrigin)/CELL_SIZE));
+		int lastColumn = (int) Math.min(columns - 1, Math.floor((maxX - xOrigin)/CELL_SIZE) - 1);
+		int lastRow = (int) Math.min(rows - 1, Math.floor((maxY - yOrigin)/CELL_SIZE) - 1);
+		
+		if(firstColumn > lastColumn || firstRow > lastRow)
+		{
+			return;
+		}
+		
+		double orientation = Math.signum(area);
+		
+		/* Rounded towards the far side, so that a cell never records its occluder as nearer than it is */
+		float depth = (float) minScale;
+		if(depth > minScale)
+		{
+			depth = Math.nextDown(depth);
+		}
+		
+		for(int row = firstRow; row <= lastRow; row ++)
+		{
+			double top = yOrigin + row*CELL_SIZE;
+			
+			for(int column = firstColumn; column <= lastColumn; column ++)
+			{
+				double left = xOrigin + column*CELL_SIZE;
+				
+				if(cellDepths[row*columns + column] < depth && contains(projection, orientation, left, top))
+				{
+					cellDepths[row*columns + column] = depth;
+				}
+			}
+		}
+		
+		for(int tileRow = firstRow/TILE_CELLS; tileRow <= lastRow/TILE_CELLS; tileRow ++)
+		{
+			for(int tileColumn = firstColumn/TILE_CELLS; tileColumn <= lastColumn/TILE_CELLS; tileColumn ++)
+			{
+				updateTile(tileColumn, tileRow);
+			}
+		}
+	}
+	
+	/** Records the given projection as hiding what lies behind it if it may be seen in front of the projections already recorded
+	 * 
+	 * @param projection	the projection tested and recorded, which should be no nearer than every projection recorded
+	 * @return true if the projection may be seen
+	 */
+	public boolean add(PolygonProjection projection)
+	{
+		if(!isVisible(projection))
+		{
+			return false;
+		}
+		
+		addOccluder(projection);
+		
+		return true;
+	}
+	
+	/** Returns whether the given convex projection contains every corner of the cell with the given top left corner
+	 * 
+	 * @param projection	the projection tested
+	 * @param orientation	the sign of the area enclosed by the points of the projection in order
+	 * @param left	the x-coordinate of the left edge of the cell
+	 * @param top	the y-coordinate of the top edge of the cell
+	 * @return true if the cell lies entirely inside of the projection
+	 */
+	private static boolean contains(PolygonProjection projection, double orientation, double left, double top)
+	{
+		int pointCount = projection.getPointCount();
+		double right = left + CELL_SIZE;
+		double bottom = top + CELL_SIZE;
+		
+		for(int i = 0; i < pointCount; i ++)
+		{
+			int next = (i + 1) % pointCount;
+			
+			double x = projection.getX(i);
+			double y = projection.getY(i);
+			double xEdge = (projection.getX(next) - x)*orientation;
+			double yEdge = (projection.getY(next) - y)*orientation;
+			
+			if(xEdge*(top - y) - yEdge*(left - x) < 0
+					|| xEdge*(top - y) - yEdge*(right - x) < 0
+					|| xEdge*(bottom - y) - yEdge*(left - x) < 0
+					|| xEdge*(bottom - y) - yEdge*(right - x) < 0)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/** Sets the depth of the given tile to the smallest depth of its cells
+	 * 
+	 * @param tileColumn	the column of the tile
+	 * @param tileRow	the row of the tile
+	 */
+	private void updateTile(int tileColumn, int tileRow)
+	{
+		float depth = Float.POSITIVE_INFINITY;
+		
+		for(int row = tileRow*TILE_CELLS; row < Math.min(rows, (tileRow + 1)*TILE_CELLS); row ++)
+		{
+			for(int column = tileColumn*TILE_CELLS; column < Math.min(columns, (tileColumn + 1)*TILE_CELLS); column ++)
+			{
+				depth = Math.min(depth, cellDepths[row*columns + column]);
+			}
+		}
+		
+		tileDepths[tileRow*tileColumns + tileColumn] = depth;
+	}
+	
+	/**
+	 * @return the width of the rectangle recorded
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return the height of the rectangle recorded
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+}
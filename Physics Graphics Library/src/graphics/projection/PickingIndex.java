@@ -0,0 +1,259 @@
+package graphics.projection;
+
+/** A class representing a grid over the view plane listing the projections whose bounds overlap each cell, built once for a set of
+ * projections so that the projection seen at a point, such as the cursor, is found by testing only the projections near it
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class PickingIndex
+{
+	/** The greatest number of columns or rows of cells */
+	private static final int MAX_CELLS = 1024;
+	
+	/** The projections indexed */
+	private final PolygonProjection[] projections;
+	
+	/** The smallest and largest x- and y-coordinates (minX, minY, maxX, maxY) of each projection */
+	private final double[] bounds;
+	
+	/** The x-coordinate of the left edge of the grid */
+	private double xOrigin;
+	
+	/** The y-coordinate of the top edge of the grid */
+	private double yOrigin;
+	
+	/** The width and height of each cell */
+	private double cellSize;
+	
+	/** The number of columns of cells */
+	private int columns;
+	
+	/** The number of rows of cells */
+	private int rows;
+	
+	/** The offset in the cell entries of the first projection of each cell, followed by the total number of entries */
+	private int[] cellStarts;
+	
+	/** The indices of the projections overlapping each cell, one cell after another */
+	private int[] cellEntries;
+	
+	/** The projection highlighted by this index, or null if none is */
+	private PolygonProjection highlighted;
+	
+	/** Parameterized constructor, initializes this index to list the given projections
+	 * 
+	 * @param projections	the projections indexed
+	 */
+	public PickingIndex(PolygonProjection[] projections)
+	{
+		this.projections = projections;
+		this.bounds = new double[4*projections.length];
+		
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		int boundedCount = 0;
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			PolygonProjection projection = projections[i];
+			
+			double projectionMinX = Double.POSITIVE_INFINITY, projectionMinY = Double.POSITIVE_INFINITY;
+			double projectionMaxX = Double.NEGATIVE_INFINITY, projectionMaxY = Double.NEGATIVE_INFINITY;
+			
+			/* Widened by a pixel to hold the truncation of the points as the projection is drawn */
+			for(int j = 0; j < projection.getPointCount(); j ++)
+			{
+				projectionMinX = Math.min(projectionMinX, projection.getX(j) - 1);
+				projectionMinY = Math.min(projectionMinY, projection.getY(j) - 1);
+				projectionMaxX = Math.max(projectionMaxX, projection.getX(j) + 1);
+				projectionMaxY = Math.max(projectionMaxY, projection.getY(j) + 1);
+			}
+			
+			bounds[4*i] = projectionMinX;
+			bounds[4*i + 1] = projectionMinY;
+			bounds[4*i + 2] = projectionMaxX;
+			bounds[4*i + 3] = projectionMaxY;
+			
+			/* Projections with no points or points at no finite position are never picked */
+			if(projectionMinX <= projectionMaxX && projectionMinY <= projectionMaxY && !Double.isInfinite(projectionMinX + projectionMinY
+					+ projectionMaxX + projectionMaxY))
+			{
+				minX = Math.min(minX, projectionMinX);
+				minY = Math.min(minY, projectionMinY);
+				maxX = Math.max(maxX, projectionMaxX);
+				maxY = Math.max(maxY, projectionMaxY);
+				boundedCount ++;
+			}
+			else
+			{
+				bounds[4*i] = Double.NaN;
+			}
+		}
+		
+		if(boundedCount == 0)
+		{
+			xOrigin = 0;
+			yOrigin = 0;
+			cellSize = 1;
+			columns = 0;
+			rows = 0;
+			cellStarts = new int[1];
+			cellEntries = new int[0];
+			
+			return;
+		}
+		
+		/* Cells sized to hold about one projection each over the area the projections span */
+		xOrigin = minX;
+		yOrigin = minY;
+		cellSize = Math.max(1, Math.sqrt((maxX - minX)*(maxY - minY)/boundedCount));
+		cellSize = Math.max(cellSize, Math.max(maxX - minX, maxY - minY)/MAX_CELLS);
+		columns = (int) Math.floor((maxX - minX)/cellSize) + 1;
+		rows = (int) Math.floor((maxY - minY)/cellSize) + 1;
+		
+		cellStarts = new int[columns*rows + 1];
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			if(Double.isNaN(bounds[4*i]))
+			{
+				continue;
+			}
+			
+			for(int row = row(bounds[4*i + 1]); row <= row(bounds[4*i + 3]); row ++)
+			{
+				for(int column = column(bounds[4*i]); column <= column(bounds[4*i + 2]); column ++)
+				{
+					cellStarts[row*columns + column + 1] ++;
+				}
+			}
+		}
+		
+		for(int cell = 0; cell < columns*rows; cell ++)
+		{
+			cellStarts[cell + 1] += cellStarts[cell];
+		}
+		
+		cellEntries = new int[cellStarts[columns*rows]];
+		
+		/* Lists the projections of each cell, using the start of each cell as its insertion point */
+		for(int i = 0; i < projections.length; i ++)
+		{
+			if(Double.isNaN(bounds[4*i]))
+			{
+				continue;
+			}
+			
+			for(int row = row(bounds[4*i + 1]); row <= row(bounds[4*i + 3]); row ++)
+			{
+				for(int column = column(bounds[4*i]); column <= column(bounds[4*i + 2]); column ++)
+				{
+					cellEntries[cellStarts[row*columns + column] ++] = i;
+				}
+			}
+		}
+		
+		/* Every insertion point now holds the end of its cell, which is the start of the following cell */
+		System.arraycopy(cellStarts, 0, cellStarts, 1, columns*rows);
+		cellStarts[0] = 0;
+	}
+	
+	/** Returns the index of the topmost projection containing the given point, the topmost being the nearest as projections are
+	 * drawn from farthest to nearest
+	 * 
+	 * @param x	the x-coordinate of the point
+	 * @param y	the y-coordinate of the point
+	 * @return the index of the topmost projection containing the point, or -1 if no projection contains it
+	 */
+	public int pickIndex(double x, double y)
+	{
+		if(!(x >= xOrigin && y >= yOrigin && x < xOrigin + columns*cellSize && y < yOrigin + rows*cellSize))
+		{
+			return -1;
+		}
+		
+		int cell = row(y)*columns + column(x);
+		int picked = -1;
+		
+		for(int entry = cellStarts[cell]; entry < cellStarts[cell + 1]; entry ++)
+		{
+			int i = cellEntries[entry];
+			
+			/* Of projections of equal priority, the one drawn last is listed first */
+			if(x < bounds[4*i] || y < bounds[4*i + 1] || x > bounds[4*i + 2] || y > bounds[4*i + 3]
+					|| (picked != -1 && projections[i].getPriority() >= projections[picked].getPriority()))
+			{
+				continue;
+			}
+			
+			if(projections[i].contains(x, y))
+			{
+				picked = i;
+			}
+		}
+		
+		return picked;
+	}
+	
+	/** Returns the topmost projection containing the given point
+	 * 
+	 * @param coord	the point picked
+	 * @return the topmost projection containing the point, or null if no projection contains it
+	 */
+	public PolygonProjection pick(Point2D coord)
+	{
+		int picked = pickIndex(coord.getX(), coord.getY());
+		
+		return picked == -1 ? null : projections[picked];
+	}
+	
+	/** Highlights the topmost projection containing the given point, ending the highlight of the projection previously highlighted
+	 * by this index
+	 * 
+	 * @param coord	the location of the cursor on the screen
+	 * @return the projection highlighted, or null if no projection contains the point
+	 */
+	public PolygonProjection highlight(Point2D coord)
+	{
+		PolygonProjection picked = pick(coord);
+		
+		if(highlighted != null)
+		{
+			highlighted.setHighlighted(false);
+		}
+		if(picked != null)
+		{
+			picked.setHighlighted(true);
+		}
+		
+		highlighted = picked;
+		
+		return picked;
+	}
+	
+	/**
+	 * @return the projections indexed
+	 */
+	public PolygonProjection[] getProjections()
+	{
+		return projections;
+	}
+	
+	/**
+	 * @param x	an x-coordinate within the grid
+	 * @return the column of cells holding the given x-coordinate
+	 */
+	private int column(double x)
+	{
+		return Math.min(columns - 1, (int) ((x - xOrigin)/cellSize));
+	}
+	
+	/**
+	 * @param y	a y-coordinate within the grid
+	 * @return the row of cells holding the given y-coordinate
+	 */
+	private int row(double y)
+	{
+		return Math.min(rows - 1, (int) ((y - yOrigin)/cellSize));
+	}
+}
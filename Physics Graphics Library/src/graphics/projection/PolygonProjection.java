@@ -8,9 +8,34 @@ import java.util.ArrayList;
  */
 public class PolygonProjection
 {
-	/** The collection of points on the screen comprising this projection */
+	/** The largest width and height of the part of the view plane in which visible projections are identified */
+	private static final int MAX_OCCLUSION_SIZE = 4096;
+	
+	/** The color with which projections are highlighted unless another is given */
+	private static final Color DEFAULT_HIGHLIGHT_COLOR = new Color(200, 232, 255);
+	
+	/** The amount by which the outline of a projection is darker than its interior */
+	private static final int EDGE_DARKENING = 15;
+	
+	/** The x-coordinates on the screen of the points comprising this projection */
+	private final double[] xPoints;
+	
+	/** The y-coordinates on the screen of the points comprising this projection */
+	private final double[] yPoints;
+	
+	/** The x-coordinates of the points truncated to the whole pixels they are drawn at, computed once when this projection is created */
+	private final int[] xPixels;
+	
+	/** The y-coordinates of the points truncated to the whole pixels they are drawn at, computed once when this projection is created */
+	private final int[] yPixels;
+	
+	/** The points comprising this projection as objects, created only when requested */
 	private Point2D[] points;
 	
+	/** The perspective scale f/(z + f) of each point, which falls with distance from the view and varies linearly across the projection,
+	 * or null if every point lies in the view plane */
+	private double[] scales;
+	
 	/** The color this projection is drawn with */
 	private Color color;
 	
@@ -20,6 +45,9 @@ public class PolygonProjection
 	/** The incline at which the polygon represented by this projection is */
 	private double incline;
 	
+	/** The level of the shade of the color of this projection its interior is drawn with */
+	private int shade;
+	
 	/** The value representing whether or not this instance is being highlighted */
 	private boolean highlighted;
 	
@@ -44,7 +72,7 @@ public class PolygonProjection
 	 */
 	public PolygonProjection(Point2D[] points, double priority, double incline, Color color)
 	{
-		this(points, priority, incline, color, new Color(200, 232, 255));
+		this(points, priority, incline, color, DEFAULT_HIGHLIGHT_COLOR);
 	}
 	
 	/** Parameterized constructor, initializes point array of instance to given array of points, the priority to the given priority, incline, and color
@@ -57,9 +85,129 @@ public class PolygonProjection
 	 */
 	public PolygonProjection(Point2D[] points, double priority, double incline, Color color, Color highlightColor)
 	{
+		this(points, null, priority, incline, color, highlightColor);
+	}
+	
+	/** Parameterized constructor, initializes point array of instance to given array of points with the given perspective scales, the priority to the given priority, incline, and color
+	 * 
+	 * @param points	the Point2D array this instance will be initialized to
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param color		the color this projection is drawn with
+	 */
+	public PolygonProjection(Point2D[] points, double[] scales, double priority, double incline, Color color)
+	{
+		this(points, scales, priority, incline, color, DEFAULT_HIGHLIGHT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes point array of instance to given array of points with the given perspective scales, the priority to the given priority, incline, and color
+	 * 
+	 * @param points	the Point2D array this instance will be initialized to
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param color		the color this projection is drawn with
+	 * @param highlightColor	the color the highlight of this projection is drawn with
+	 */
+	public PolygonProjection(Point2D[] points, double[] scales, double priority, double incline, Color color, Color highlightColor)
+	{
+		this(points, scales, priority, incline, ShadePalette.getLevel(Math.min(30*incline, 50)), color, highlightColor);
+	}
+	
+	/** Parameterized constructor, initializes point array of instance to given array of points with the given perspective scales, the priority to the given priority, incline, shade, and color
+	 * 
+	 * @param points	the Point2D array this instance will be initialized to
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param shade	the level of the shade of the given color the interior of this projection is drawn with, such as from lighting
+	 * @param color		the color this projection is drawn with
+	 */
+	public PolygonProjection(Point2D[] points, double[] scales, double priority, double incline, int shade, Color color)
+	{
+		this(points, scales, priority, incline, shade, color, DEFAULT_HIGHLIGHT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes point array of instance to given array of points with the given perspective scales, the priority to the given priority, incline, shade, and color
+	 * 
+	 * @param points	the Point2D array this instance will be initialized to
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param shade	the level of the shade of the given color the interior of this projection is drawn with, such as from lighting
+	 * @param color		the color this projection is drawn with
+	 * @param highlightColor	the color the highlight of this projection is drawn with
+	 */
+	public PolygonProjection(Point2D[] points, double[] scales, double priority, double incline, int shade, Color color, Color highlightColor)
+	{
+		this(getXCoordinates(points), getYCoordinates(points), scales, priority, incline, shade, color, highlightColor);
 		this.points = points;
+	}
+	
+	/** Parameterized constructor, initializes the points of instance to the given packed coordinates with the given perspective scales, the priority to the given priority, incline, and color
+	 * 
+	 * @param xPoints	the x-coordinates of the points, used without being copied
+	 * @param yPoints	the y-coordinates of the points, used without being copied
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param color		the color this projection is drawn with
+	 */
+	public PolygonProjection(double[] xPoints, double[] yPoints, double[] scales, double priority, double incline, Color color)
+	{
+		this(xPoints, yPoints, scales, priority, incline, ShadePalette.getLevel(Math.min(30*incline, 50)), color, DEFAULT_HIGHLIGHT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes the points of instance to the given packed coordinates with the given perspective scales, the priority to the given priority, incline, shade, and color
+	 * 
+	 * @param xPoints	the x-coordinates of the points, used without being copied
+	 * @param yPoints	the y-coordinates of the points, used without being copied
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param shade	the level of the shade of the given color the interior of this projection is drawn with, such as from lighting
+	 * @param color		the color this projection is drawn with
+	 */
+	public PolygonProjection(double[] xPoints, double[] yPoints, double[] scales, double priority, double incline, int shade, Color color)
+	{
+		this(xPoints, yPoints, scales, priority, incline, shade, color, DEFAULT_HIGHLIGHT_COLOR);
+	}
+	
+	/** Parameterized constructor, initializes the points of instance to the given packed coordinates with the given perspective scales, the priority to the given priority, incline, shade, and color
+	 * 
+	 * @param xPoints	the x-coordinates of the points, used without being copied
+	 * @param yPoints	the y-coordinates of the points, used without being copied
+	 * @param scales	the perspective scale f/(z + f) of each point, or null if every point lies in the view plane
+	 * @param priority	the priority this instance will be initialized to have
+	 * @param incline	the incline this instance will be set to
+	 * @param shade	the level of the shade of the given color the interior of this projection is drawn with, such as from lighting
+	 * @param color		the color this projection is drawn with
+	 * @param highlightColor	the color the highlight of this projection is drawn with
+	 * @throws IllegalArgumentException if the coordinate arrays differ in length
+	 */
+	public PolygonProjection(double[] xPoints, double[] yPoints, double[] scales, double priority, double incline, int shade, Color color, Color highlightColor)
+	{
+		if(xPoints.length != yPoints.length)
+		{
+			throw new IllegalArgumentException("Expected " + xPoints.length + " y-coordinates but got " + yPoints.length);
+		}
+		
+		this.xPoints = xPoints;
+		this.yPoints = yPoints;
+		this.xPixels = new int[xPoints.length];
+		this.yPixels = new int[yPoints.length];
+		
+		for(int i = 0; i < xPoints.length; i ++)
+		{
+			xPixels[i] = (int) xPoints[i];
+			yPixels[i] = (int) yPoints[i];
+		}
+		
+		this.scales = scales;
 		this.priority = priority;
 		this.incline = incline;
+		this.shade = shade;
 		this.color = color;
 		this.highlightColor = highlightColor;
 		this.highlighted = false;
@@ -83,18 +231,20 @@ public class PolygonProjection
 	 */
 	public PolygonProjection rotate(Point2D point, double angle)
 	{
-		Point2D[] rotatedPoints = new Point2D[points.length];
+		double[] rotatedX = new double[xPoints.length];
+		double[] rotatedY = new double[yPoints.length];
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
 		
-		for(int i = 0; i < points.length; i ++)
+		for(int i = 0; i < xPoints.length; i ++)
 		{
-			double xCoord = points[i].getX() - point.getX();
-			double yCoord = points[i].getY() - point.getY();
-			double cos = Math.cos(angle);
-			double sin = Math.sin(angle);
-			rotatedPoints[i] = new Point2D(xCoord*cos - yCoord*sin + point.getX(), xCoord*sin + yCoord*cos + point.getY());
+			double xCoord = xPoints[i] - point.getX();
+			double yCoord = yPoints[i] - point.getY();
+			rotatedX[i] = xCoord*cos - yCoord*sin + point.getX();
+			rotatedY[i] = xCoord*sin + yCoord*cos + point.getY();
 		}
 		
-		return new PolygonProjection(rotatedPoints, priority, incline, color);
+		return new PolygonProjection(rotatedX, rotatedY, scales, priority, incline, shade, color);
 	}
 	
 	/** Translated this projected by the given values
@@ -105,12 +255,14 @@ public class PolygonProjection
 	 */
 	public PolygonProjection translate(int xInc, int yInc)
 	{
-		Point2D[] translatedPoints = new Point2D[points.length];
-		for(int i = 0; i < points.length; i ++)
+		double[] translatedX = new double[xPoints.length];
+		double[] translatedY = new double[yPoints.length];
+		for(int i = 0; i < xPoints.length; i ++)
 		{
-			translatedPoints[i] = new Point2D(points[i].getX() + xInc, points[i].getY() + yInc);
+			translatedX[i] = xPoints[i] + xInc;
+			translatedY[i] = yPoints[i] + yInc;
 		}
-		return new PolygonProjection(translatedPoints, priority, incline, color);
+		return new PolygonProjection(translatedX, translatedY, scales, priority, incline, shade, color);
 	}
 	
 	/** Properly highlights this instance based on the cursor location
@@ -118,19 +270,37 @@ public class PolygonProjection
 	 * @param cursorCoord	the location of the cursor on the screen
 	 */
 	public void highlight(Point2D coord)
-	{	
-		int[] xPoints = new int[points.length];
-		int[] yPoints = new int[points.length];
+	{
+		highlighted = contains(coord.getX(), coord.getY());
+	}
+	
+	/** Returns whether the given point lies inside of this instance as it is drawn, counting the crossings of its outline by a ray from
+	 * the point, without creating any objects
+	 * 
+	 * @param x	the x-coordinate of the point
+	 * @param y	the y-coordinate of the point
+	 * @return true if the point lies inside of this instance
+	 */
+	public boolean contains(double x, double y)
+	{
+		boolean inside = false;
 		
-		for(int i = 0; i < points.length; i ++)
+		for(int i = 0, previous = xPixels.length - 1; i < xPixels.length; previous = i ++)
 		{
-			xPoints[i] = (int)points[i].getX();
-			yPoints[i] = (int)points[i].getY();
+			/* Drawn with its points truncated to whole pixels */
+			int xCurrent = xPixels[i];
+			int yCurrent = yPixels[i];
+			int xPrevious = xPixels[previous];
+			int yPrevious = yPixels[previous];
+			
+			if((yCurrent > y) != (yPrevious > y)
+					&& x < xCurrent + (double) (xPrevious - xCurrent)*(y - yCurrent)/(yPrevious - yCurrent))
+			{
+				inside = !inside;
+			}
 		}
 		
-		Polygon thisPoly = new Polygon(xPoints, yPoints, points.length);
-		
-		highlighted = thisPoly.contains(coord.getX(), coord.getY());
+		return inside;
 	}
 	
 	/** Draws this instance on to the given Graphics object
@@ -141,24 +311,13 @@ public class PolygonProjection
 	{
 		Color currentColor = graphics.getColor();
 		
-		Color inclinedColor = darken(color, Math.min(30*incline, 50));
-		
-		graphics.setColor(inclinedColor);
-		
-		int[] xPoints = new int[points.length];
-		int[] yPoints = new int[points.length];
+		graphics.setColor(getFillColor());
 		
-		for(int i = 0; i < points.length; i ++)
-		{
-			xPoints[i] = (int)points[i].getX();
-			yPoints[i] = (int)points[i].getY();
-		}
-		
-		graphics.fillPolygon(xPoints, yPoints, points.length);
+		graphics.fillPolygon(xPixels, yPixels, xPixels.length);
 		
-		graphics.setColor(highlighted ? highlightColor : darken(inclinedColor, 15));
+		graphics.setColor(getEdgeColor());
 		
-		graphics.drawPolygon(xPoints, yPoints, points.length);
+		graphics.drawPolygon(xPixels, yPixels, xPixels.length);
 		
 		/*
 		 * Triangulization:
@@ -168,14 +327,127 @@ public class PolygonProjection
 		graphics.setColor(currentColor);
 	}
 	
-	/**
+	/** Draws this instance on to the given Graphics object, writing the identifier it is given by the given buffer over the pixels it fills
+	 * 
+	 * @param graphics	the graphics object drawn on
+	 * @param ids	the buffer the identifier of this instance is written to, or null if none is
+	 */
+	public void draw(Graphics graphics, IdBuffer ids)
+	{
+		draw(graphics);
+		
+		if(ids != null)
+		{
+			ids.fill(this);
+		}
+	}
+	
+	/** Returns the points comprising this PolygonProjection as objects, creating them the first time they are requested
+	 * 
 	 * @return the array of 2D points comprising this PolygonProjection
 	 */
 	public Point2D[] getPoints()
 	{
+		if(points == null)
+		{
+			Point2D[] points = new Point2D[xPoints.length];
+			
+			for(int i = 0; i < points.length; i ++)
+			{
+				points[i] = new Point2D(xPoints[i], yPoints[i]);
+			}
+			
+			this.points = points;
+		}
+		
 		return points;
 	}
 	
+	/**
+	 * @return the number of points comprising this PolygonProjection
+	 */
+	public int getPointCount()
+	{
+		return xPoints.length;
+	}
+	
+	/**
+	 * @param index	the index of the point
+	 * @return the x-coordinate of the point with the given index
+	 */
+	public double getX(int index)
+	{
+		return xPoints[index];
+	}
+	
+	/**
+	 * @param index	the index of the point
+	 * @return the y-coordinate of the point with the given index
+	 */
+	public double getY(int index)
+	{
+		return yPoints[index];
+	}
+	
+	/**
+	 * @param index	the index of the point
+	 * @return the x-coordinate of the whole pixel the point with the given index is drawn at
+	 */
+	public int getXPixel(int index)
+	{
+		return xPixels[index];
+	}
+	
+	/**
+	 * @param index	the index of the point
+	 * @return the y-coordinate of the whole pixel the point with the given index is drawn at
+	 */
+	public int getYPixel(int index)
+	{
+		return yPixels[index];
+	}
+	
+	/**
+	 * @param index	the index of the point
+	 * @return the perspective scale f/(z + f) of the point with the given index, which is larger for nearer points
+	 */
+	public double getScale(int index)
+	{
+		return scales == null ? 1 : scales[index];
+	}
+	
+	/**
+	 * @return the color the interior of this instance is drawn with, darkened according to its incline or lighting
+	 */
+	public Color getFillColor()
+	{
+		return ShadePalette.getShade(color, shade);
+	}
+	
+	/**
+	 * @return the color the outline of this instance is drawn with
+	 */
+	public Color getEdgeColor()
+	{
+		return highlighted ? highlightColor : ShadePalette.getShade(color, shade + EDGE_DARKENING);
+	}
+	
+	/**
+	 * @return true if this instance is being highlighted
+	 */
+	public boolean isHighlighted()
+	{
+		return highlighted;
+	}
+	
+	/**
+	 * @param highlighted	the value representing whether or not this instance is being highlighted
+	 */
+	public void setHighlighted(boolean highlighted)
+	{
+		this.highlighted = highlighted;
+	}
+	
 	/**
 	 * @return the priority of this instance
 	 */
@@ -192,23 +464,38 @@ public class PolygonProjection
 		return incline;
 	}
 	
-	/** A method returning a darkened version of the given color
+	/** Returns the x-coordinates of the given points
 	 * 
-	 * @param initial the color whose darkened version will be returned
-	 * @param factor the factor controlling by how much the color will be darkened
-	 * @return
+	 * @param points	the points
+	 * @return a packed array of the x-coordinate of each point
 	 */
-	private static Color darken(Color initial, double factor)
+	private static double[] getXCoordinates(Point2D[] points)
 	{
-		int red = initial.getRed();
-		int green = initial.getGreen();
-		int blue = initial.getBlue();
+		double[] coordinates = new double[points.length];
 		
-		red = (int) (red < factor ? 0 : red - factor);
-		green = (int) (green < factor ? 0 : green - factor);
-		blue = (int) (blue < factor ? 0 : blue - factor);
+		for(int i = 0; i < points.length; i ++)
+		{
+			coordinates[i] = points[i].getX();
+		}
 		
-		return new Color(red, green, blue);
+		return coordinates;
+	}
+	
+	/** Returns the y-coordinates of the given points
+	 * 
+	 * @param points	the points
+	 * @return a packed array of the y-coordinate of each point
+	 */
+	private static double[] getYCoordinates(Point2D[] points)
+	{
+		double[] coordinates = new double[points.length];
+		
+		for(int i = 0; i < points.length; i ++)
+		{
+			coordinates[i] = points[i].getY();
+		}
+		
+		return coordinates;
 	}
 	
 	/** A method returning a brightened version of the given color
@@ -237,47 +524,102 @@ public class PolygonProjection
 	 */
 	public static ArrayList<PolygonProjection> sort(ArrayList<PolygonProjection> polygons)
 	{
-		return sort((PolygonProjection[]) polygons.toArray());
+		return sort(polygons.toArray(new PolygonProjection[polygons.size()]));
 	}
 	
-	/**	Sorts the given array based on priority
+	/**	Sorts the given array based on priority, projections of equal priority keeping their relative order
 	 * 
 	 * @param polygons	the polygon projection array to be sorted
 	 * @return a sorted ArrayList of PolygonProjecton objects from the given array
 	 */
 	public static ArrayList<PolygonProjection> sort(PolygonProjection[] polygons)
 	{
-		ArrayList<PolygonProjection> sorted = new ArrayList<PolygonProjection>();
-		sorted.add(polygons[0]);
-		for(int i = 1; i < polygons.length; i ++)
+		int[] order = new DepthSorter().sort(polygons, polygons.length);
+		
+		ArrayList<PolygonProjection> sorted = new ArrayList<PolygonProjection>(polygons.length);
+		for(int i = 0; i < polygons.length; i ++)
 		{
-			for(int j = sorted.size() - 1; j >= 0; j --)
-			{
-				if(polygons[i].priority >= sorted.get(j).priority)
-				{
-					sorted.add(j + 1, polygons[i]);
-					break;
-				}
-				else if(j == 0)
-				{
-					sorted.add(0, polygons[i]);
-					break;
-				}
-			}
+			sorted.add(polygons[order[i]]);
 		}
 		return sorted;
 	}
 	
 	/**
-	 * Identifies the visible polygon projections of the given array list of polygon projections
+	 * Identifies the visible polygon projections of the given array list of polygon projections, testing them from nearest to farthest
+	 * against a coarse record of the parts of the view plane hidden by the nearer ones; a projection is only discarded if it lies entirely
+	 * behind nearer projections, but may be kept although hidden
 	 * 
 	 * @param polygons	the polygon projections to obtain the visibles from
-	 * @return	the visible polygon projections of the given array of polygon projections
+	 * @return	the visible polygon projections of the given array of polygon projections, in their given order
 	 */
 	public static ArrayList<PolygonProjection> getVisible(ArrayList<PolygonProjection> polygons)
 	{
 		ArrayList<PolygonProjection> visibles = new ArrayList<PolygonProjection>();
 		
+		PolygonProjection[] projections = polygons.toArray(new PolygonProjection[polygons.size()]);
+		boolean[] visible = new boolean[projections.length];
+		
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			PolygonProjection projection = projections[i];
+			double projectionMinX = Double.POSITIVE_INFINITY, projectionMinY = Double.POSITIVE_INFINITY;
+			double projectionMaxX = Double.NEGATIVE_INFINITY, projectionMaxY = Double.NEGATIVE_INFINITY;
+			double scaleSum = 0;
+			
+			for(int j = 0; j < projection.getPointCount(); j ++)
+			{
+				projectionMinX = Math.min(projectionMinX, projection.getX(j));
+				projectionMinY = Math.min(projectionMinY, projection.getY(j));
+				projectionMaxX = Math.max(projectionMaxX, projection.getX(j));
+				projectionMaxY = Math.max(projectionMaxY, projection.getY(j));
+				scaleSum += projection.getScale(j);
+			}
+			
+			/* Projections with no points or with a coordinate or scale that is not finite cannot be placed in the record, so are left
+			 * out of its bounds and always kept */
+			if(projectionMinX <= projectionMaxX && projectionMinY <= projectionMaxY && !Double.isInfinite(projectionMinX + projectionMinY
+					+ projectionMaxX + projectionMaxY) && !Double.isNaN(scaleSum) && !Double.isInfinite(scaleSum))
+			{
+				minX = Math.min(minX, projectionMinX);
+				minY = Math.min(minY, projectionMinY);
+				maxX = Math.max(maxX, projectionMaxX);
+				maxY = Math.max(maxY, projectionMaxY);
+			}
+			else
+			{
+				visible[i] = true;
+			}
+		}
+		
+		if(minX <= maxX && minY <= maxY)
+		{
+			/* The record covers the projections up to a bounded size, the projections beyond it never being discarded */
+			OcclusionBuffer buffer = new OcclusionBuffer(Math.floor(minX), Math.floor(minY),
+					(int) Math.min(MAX_OCCLUSION_SIZE, maxX - Math.floor(minX) + 1),
+					(int) Math.min(MAX_OCCLUSION_SIZE, maxY - Math.floor(minY) + 1));
+			
+			int[] order = new DepthSorter().sort(projections, projections.length);
+			
+			for(int i = 0; i < projections.length; i ++)
+			{
+				if(!visible[order[i]])
+				{
+					visible[order[i]] = buffer.add(projections[order[i]]);
+				}
+			}
+		}
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			if(visible[i])
+			{
+				visibles.add(projections[i]);
+			}
+		}
+		
 		return visibles;
 	}
 }
@@ -1,7 +1,6 @@
 package graphics.projection;
 
 import java.awt.Graphics;
-import java.util.ArrayList;
 
 /** A class representing a projection of a 3D polyhedron
  * @author Benjamin Cohen-Wang
@@ -11,13 +10,42 @@ public class PolyhedronProjection
 	/** The array of Polygon Projections this instance is composed of */
 	PolygonProjection[] projections;
 	
+	/** The value representing whether the projections of this instance are already ordered from farthest to nearest and drawn without sorting */
+	private boolean ordered;
+	
+	/** The sorter ordering the projections of this instance for drawing, which may be shared with later projections of the same polyhedron */
+	private DepthSorter sorter;
+	
 	/** Parameterized constructor, initializes projection array of instance to given array of projections
 	 * 
 	 * @param projections	The PolygonProjection array this instance will be initialized to
 	 */
 	public PolyhedronProjection(PolygonProjection[] projections)
+	{
+		this(projections, null);
+	}
+	
+	/** Parameterized constructor, initializes projection array of instance to given array of projections, drawn in the order found by the given sorter
+	 * 
+	 * @param projections	The PolygonProjection array this instance will be initialized to
+	 * @param sorter	the sorter which orders the projections, repairing the order it found for the previous projection of the same polyhedron,
+	 * 					or null if a sorter is to be created when this instance is first drawn
+	 */
+	public PolyhedronProjection(PolygonProjection[] projections, DepthSorter sorter)
 	{
 		this.projections = projections;
+		this.sorter = sorter;
+	}
+	
+	/** Parameterized constructor, initializes projection array of instance to given array of projections, which if ordered is drawn in the given order
+	 * 
+	 * @param projections	The PolygonProjection array this instance will be initialized to
+	 * @param ordered	the value representing whether the projections are ordered from farthest to nearest, such as by a walk of a BSP tree
+	 */
+	public PolyhedronProjection(PolygonProjection[] projections, boolean ordered)
+	{
+		this(projections, null);
+		this.ordered = ordered;
 	}
 	
 	/** Returns a rotated instance of PolyhedronProjection rotated about the origin through the given angle
@@ -45,20 +73,55 @@ public class PolyhedronProjection
 			rotatedProjections[i] = projections[i].rotate(point, angle);
 		}
 		
-		return new PolyhedronProjection(rotatedProjections);
+		return new PolyhedronProjection(rotatedProjections, ordered);
 	}
 	
-	/** Draws this instance on the given graphics object
+	/** Draws this instance on the given graphics object, from the farthest polygon to the nearest
 	 * 
 	 * @param graphics	the graphics object this instance will be drawn on
 	 */
 	public void draw(Graphics graphics)
 	{
-		ArrayList<PolygonProjection> sortedPolygons = PolygonProjection.sort(projections);
+		draw(graphics, null);
+	}
+	
+	/** Draws this instance on the given graphics object, from the farthest polygon to the nearest, writing the identifier each polygon
+	 * is given by the given buffer over the pixels it fills; the buffer is not cleared, so that several projections may be drawn in to it,
+	 * and should be cleared by the caller before each frame
+	 * 
+	 * @param graphics	the graphics object this instance will be drawn on
+	 * @param ids	the buffer the identifiers of the polygons are written to, or null if none is
+	 */
+	public void draw(Graphics graphics, IdBuffer ids)
+	{
+		if(ordered)
+		{
+			for(PolygonProjection projection : projections)
+			{
+				projection.draw(graphics, ids);
+			}
+			
+			return;
+		}
 		
-		for(PolygonProjection projection : sortedPolygons)
+		if(sorter == null)
 		{
-			projection.draw(graphics);
+			sorter = new DepthSorter();
 		}
+		
+		int[] order = sorter.sortCoherent(projections, projections.length);
+		
+		for(int i = projections.length - 1; i >= 0; i --)
+		{
+			projections[order[i]].draw(graphics, ids);
+		}
+	}
+	
+	/**
+	 * @return the array of Polygon Projections this instance is composed of
+	 */
+	public PolygonProjection[] getProjections()
+	{
+		return projections;
 	}
 }
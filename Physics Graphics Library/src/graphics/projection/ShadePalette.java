@@ -0,0 +1,153 @@
+package graphics.projection;
+
+import java.awt.Color;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** A class caching the shades of the colors projections are drawn with, so that drawing looks shades up rather than creating them
+ * 
+ * A shade is given by its level, the amount subtracted from each component of the base color; as the components of a shade are whole,
+ * darkening by any amount is the same as darkening by the level above it, and darkening twice is the same as darkening by the sum of the
+ * levels
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class ShadePalette
+{
+	/** The darkest level, at which every color is black */
+	public static final int MAX_LEVEL = 255;
+	
+	/** The amount by which a darkening may exceed a level and still be given that level, absorbing rounding error */
+	private static final double LEVEL_TOLERANCE = 1e-9;
+	
+	/** The number of slots of the cache, a power of two */
+	private static final int CACHE_SIZE = 4096;
+	
+	/** The greatest number of base colors cached at once, leaving enough slots empty that probing stays short */
+	private static final int MAX_BASES = 3*CACHE_SIZE/4;
+	
+	/** The cache of the shades of base colors, replaced by an empty cache when it holds the greatest number of base colors */
+	private static volatile ShadeTable table = new ShadeTable();
+	
+	/** Returns the level darkening colors by the given amount
+	 * 
+	 * @param darkening	the amount subtracted from each component of a color
+	 * @return the smallest whole level at least the given amount, up to rounding error, or the darkest level if the amount is not a number
+	 */
+	public static int getLevel(double darkening)
+	{
+		if(!(darkening < MAX_LEVEL))
+		{
+			return MAX_LEVEL;
+		}
+		
+		return darkening <= 0 ? 0 : (int) Math.ceil(darkening - LEVEL_TOLERANCE);
+	}
+	
+	/** Returns the shade of the given color at the given level without locking; threads shading the same new level at once may each
+	 * create the shade, every one of them equal
+	 * 
+	 * @param base	the color shaded
+	 * @param level	the amount subtracted from each component of the color, limited to the darkest level
+	 * @return the shade of the color
+	 */
+	public static Color getShade(Color base, int level)
+	{
+		level = Math.max(0, Math.min(MAX_LEVEL, level));
+		
+		int rgb = base.getRGB() & 0xFFFFFF;
+		ShadeEntry entry = getEntry(rgb);
+		Color shade = entry.shades.get(level);
+		
+		if(shade == null)
+		{
+			shade = new Color(Math.max(0, (rgb >> 16) - level), Math.max(0, (rgb >> 8 & 0xFF) - level), Math.max(0, (rgb & 0xFF) - level));
+			entry.shades.set(level, shade);
+		}
+		
+		return shade;
+	}
+	
+	/** Returns the cached shades of the given base color, probing the slots from the one the color hashes to and claiming the first empty
+	 * slot if the color is not held, so that colors sharing a slot are held side by side rather than displacing each other
+	 * 
+	 * @param rgb	the base color, with no alpha
+	 * @return the entry holding the shades of the color
+	 */
+	private static ShadeEntry getEntry(int rgb)
+	{
+		int hash = rgb*0x9E3779B1;
+		int start = (hash ^ hash >>> 16) & (CACHE_SIZE - 1);
+		
+		ShadeTable current = table;
+		int slot = start;
+		
+		while(true)
+		{
+			ShadeEntry entry = current.entries.get(slot);
+			
+			if(entry == null)
+			{
+				if(current.baseCount.incrementAndGet() > MAX_BASES)
+				{
+					/* Colors held are cached again in the new table as they are next shaded */
+					current = new ShadeTable();
+					table = current;
+					slot = start;
+					continue;
+				}
+				
+				entry = new ShadeEntry(rgb);
+				
+				if(current.entries.compareAndSet(slot, null, entry))
+				{
+					return entry;
+				}
+				
+				/* Another thread claimed the slot first, perhaps for the same color, so it is read again */
+				current.baseCount.decrementAndGet();
+				continue;
+			}
+			if(entry.rgb == rgb)
+			{
+				return entry;
+			}
+			
+			slot = (slot + 1) & (CACHE_SIZE - 1);
+		}
+	}
+	
+	/** A class representing a cache of the shades of base colors, open addressed by base color, whose slots are claimed without locking
+	 * and never cleared
+	 * 
+	 */
+	private static class ShadeTable
+	{
+		/** The entries of the base colors held, or null where a slot is empty */
+		private final AtomicReferenceArray<ShadeEntry> entries = new AtomicReferenceArray<ShadeEntry>(CACHE_SIZE);
+		
+		/** The number of slots claimed or being claimed */
+		private final AtomicInteger baseCount = new AtomicInteger();
+	}
+	
+	/** A class representing the cached shades of a base color, whose final fields make it safe to share between threads without locking
+	 * 
+	 */
+	private static class ShadeEntry
+	{
+		/** The base color, with no alpha */
+		private final int rgb;
+		
+		/** The shades of the base color, indexed by level and created as they are first needed */
+		private final AtomicReferenceArray<Color> shades = new AtomicReferenceArray<Color>(MAX_LEVEL + 1);
+		
+		/** Parameterized constructor, initializes an entry for the given base color with no shades
+		 * 
+		 * @param rgb	the base color, with no alpha
+		 */
+		private ShadeEntry(int rgb)
+		{
+			this.rgb = rgb;
+		}
+	}
+}
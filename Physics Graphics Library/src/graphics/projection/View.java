@@ -1,5 +1,7 @@
 package graphics.projection;
 
+import java.util.ArrayList;
+
 import graphics.polygon.*;
 
 /** A class representing a viewpoint in 3D space
@@ -23,7 +25,22 @@ public class View
 	private int height;
 	
 	/** The factor determining the rate of change in view size due to perspective */
-	public double focalLength = 700.0;
+	private double focalLength = 700.0;
+	
+	/** The value representing whether polygons are clipped to the edges of the view as well as to its near plane */
+	private boolean frustumClipping;
+	
+	/** The lights shading the polygons seen from this view, polygons being shaded by their incline if there are none */
+	private ArrayList<DirectionalLight> lights = new ArrayList<DirectionalLight>();
+	
+	/** The fraction of full brightness given to every polygon regardless of the lights */
+	private double ambient = 0.3;
+	
+	/** The transformation of space on to the view plane of this view, rebuilt lazily after this view changes */
+	private ViewTransform transform;
+	
+	/** The number of times this view has been changed, used by projections to identify an unchanged view */
+	private int version;
 
 	/** Parameterized constructor, initializes the point viewed to and from
 	 * @param viewPoint	the point being viewed from
@@ -69,6 +86,7 @@ public class View
 	public void translateView(double xInc, double yInc, double zInc)
 	{
 		viewPoint = viewPoint.translate(xInc, yInc, zInc);
+		changed();
 	}
 	
 	/** Translates the viewed point of instance by the given values
@@ -80,6 +98,7 @@ public class View
 	public void translateViewed(double xInc, double yInc, double zInc)
 	{
 		viewedPoint = viewedPoint.translate(xInc, yInc, zInc);
+		changed();
 	}
 	
 	/** Zooms in on the viewed Point by moving the view point towards it by an amount given by the magnification parameter
@@ -89,12 +108,64 @@ public class View
 	public void zoom(double magnification)
 	{
 		focalLength *= magnification;
+		changed();
 //		double xInc = (magnification - 1)*(viewedPoint.getX() - viewPoint.getX());
 //		double yInc = (magnification - 1)*(viewedPoint.getY() - viewPoint.getY());
 //		double zInc = (magnification - 1)*(viewedPoint.getZ() - viewPoint.getZ());
 //		viewPoint = viewPoint.translate(xInc, yInc, zInc);
 	}
 	
+	/** Adds the given light to the lights shading the polygons seen from this view
+	 * 
+	 * @param light	the light added
+	 */
+	public void addLight(DirectionalLight light)
+	{
+		lights.add(light);
+		changed();
+	}
+	
+	/** Removes the given light from the lights shading the polygons seen from this view
+	 * 
+	 * @param light	the light removed
+	 * @return true if the light was shading the polygons seen from this view
+	 */
+	public boolean removeLight(DirectionalLight light)
+	{
+		boolean removed = lights.remove(light);
+		
+		if(removed)
+		{
+			changed();
+		}
+		
+		return removed;
+	}
+	
+	/** Returns the transformation of space on to the view plane of this view, rebuilding it only if this view has changed since it was last built
+	 * 
+	 * @return the ViewTransform of this view
+	 */
+	public ViewTransform getTransform()
+	{
+		if(transform == null)
+		{
+			transform = new ViewTransform(this);
+		}
+		
+		return transform;
+	}
+	
+	/** Returns the version of this view, which is incremented whenever it is changed; the view and viewed points must be replaced
+	 * through the setters rather than modified in place for the change to be registered
+	 * 
+	 * @return the version of this view
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+	
 	/**
 	 * @return the point viewed from
 	 */
@@ -143,12 +214,37 @@ public class View
 		return focalLength;
 	}
 
+	/**
+	 * @return true if polygons are clipped to the edges of the view as well as to its near plane
+	 */
+	public boolean isFrustumClipping()
+	{
+		return frustumClipping;
+	}
+	
+	/**
+	 * @return the lights shading the polygons seen from this view
+	 */
+	public DirectionalLight[] getLights()
+	{
+		return lights.toArray(new DirectionalLight[lights.size()]);
+	}
+	
+	/**
+	 * @return the fraction of full brightness given to every polygon regardless of the lights
+	 */
+	public double getAmbient()
+	{
+		return ambient;
+	}
+	
 	/**
 	 * @param viewPoint the value the point viewed from is set to
 	 */
 	public void setView(Point3D viewPoint)
 	{
 		this.viewPoint = viewPoint;
+		changed();
 	}
 
 	/**
@@ -157,6 +253,7 @@ public class View
 	public void setViewed(Point3D viewedPoint)
 	{
 		this.viewedPoint = viewedPoint;
+		changed();
 	}
 	
 	/**
@@ -165,6 +262,7 @@ public class View
 	public void setTurnAngle(double turnAngle)
 	{
 		this.turnAngle = turnAngle;
+		changed();
 	}
 	
 	/**
@@ -173,6 +271,7 @@ public class View
 	public void setWidth(int width)
 	{
 		this.width = width;
+		changed();
 	}
 
 	/**
@@ -181,6 +280,7 @@ public class View
 	public void setHeight(int height)
 	{
 		this.height = height;
+		changed();
 	}
 
 	/**
@@ -189,5 +289,33 @@ public class View
 	public void setFocalLength(double focalLength)
 	{
 		this.focalLength = focalLength;
+		changed();
+	}
+	
+	/**
+	 * @param frustumClipping	the value representing whether polygons are clipped to the edges of the view as well as to its near plane
+	 */
+	public void setFrustumClipping(boolean frustumClipping)
+	{
+		this.frustumClipping = frustumClipping;
+		changed();
+	}
+	
+	/**
+	 * @param ambient	the fraction of full brightness given to every polygon regardless of the lights
+	 */
+	public void setAmbient(double ambient)
+	{
+		this.ambient = ambient;
+		changed();
+	}
+	
+	/** Registers a change to this view, discarding its derived transformation
+	 * 
+	 */
+	private void changed()
+	{
+		transform = null;
+		version ++;
 	}
 }
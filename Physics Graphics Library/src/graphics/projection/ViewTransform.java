@@ -0,0 +1,515 @@
+package graphics.projection;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+import graphics.polygon.*;
+
+/** A class representing the complete transformation of 3D space on to the view plane of a View,
+ * composed of an affine camera transformation followed by a perspective division
+ * @author Benjamin Cohen-Wang
+ */
+public class ViewTransform
+{
+	/** The z-coordinate in camera coordinates in front of which polygons are projected, points behind it being clipped away */
+	public static final double NEAR_PLANE = -5;
+	
+	/** The darkening of the color of a polygon lit by nothing but the ambient light */
+	private static final double UNLIT_DARKENING = 100;
+	
+	/** The transformation of space positioning the view point at the origin and the viewed point on the positive z-axis */
+	private final Transform3D camera;
+	
+	/** The factor determining the rate of change in view size due to perspective */
+	private final double focalLength;
+	
+	/** The x-coordinate of the center of the view plane */
+	private final double xCenter;
+	
+	/** The y-coordinate of the center of the view plane */
+	private final double yCenter;
+	
+	/** The width of the view plane */
+	private final int width;
+	
+	/** The height of the view plane */
+	private final int height;
+	
+	/** The point in space from which the perspective of this transformation is seen */
+	private final Point3D eye;
+	
+	/** The coefficients (a, b, c, d) of the planes polygons are clipped against in camera coordinates, a point being kept where ax + by + cz + d >= 0 */
+	private final double[][] clipPlanes;
+	
+	/** The packed (x, y, z) unit directions in which the lights of the view travel */
+	private final double[] lightDirections;
+	
+	/** The intensity of each light of the view */
+	private final double[] lightIntensities;
+	
+	/** The fraction of full brightness given to every polygon regardless of the lights */
+	private final double ambient;
+	
+	/** Parameterized constructor, derives the camera transformation and perspective parameters of the given view
+	 * 
+	 * @param view	the View this transformation is derived from
+	 */
+	public ViewTransform(View view)
+	{
+		Point3D viewPoint = view.getView();
+		Point3D viewedPoint = view.getViewed();
+		
+		double xDisp = viewedPoint.getX() - viewPoint.getX();
+		double yDisp = viewedPoint.getY() - viewPoint.getY();
+		double zDisp = viewedPoint.getZ() - viewPoint.getZ();
+		
+		double xTurnAxis = yDisp;
+		double yTurnAxis = -xDisp;
+		
+		double zTurnAngle = Math.atan2(yTurnAxis, xTurnAxis);
+		double turnAngle = Math.acos(zDisp/Math.sqrt(xDisp*xDisp + yDisp*yDisp + zDisp*zDisp));
+		
+		/*
+		 * Translation of space to position rotation axis at origin, rotation about the z-axis to position the rotation axis at the x-axis,
+		 * rotation about the x-axis positioning the view plane at z = k, and a rotation about the z-axis reversing the previous z-rotation
+		 * combined with the turn of the view in its plane
+		 */
+		camera = new Transform3D()
+				.translate(-viewPoint.getX(), -viewPoint.getY(), -viewPoint.getZ())
+				.rotAboutZ(-zTurnAngle)
+				.rotAboutX(turnAngle)
+				.rotAboutZ(zTurnAngle + view.getTurnAngle());
+		
+		focalLength = view.getFocalLength();
+		xCenter = view.getWidth()/2;
+		yCenter = view.getHeight()/2;
+		width = view.getWidth();
+		height = view.getHeight();
+		
+		/* The perspective division sees space from a distance of one focal length behind the view point */
+		eye = camera.inverse().apply(new Point3D(0, 0, -focalLength));
+		
+		double[] nearPlane = {0, 0, 1, -NEAR_PLANE};
+		
+		if(view.isFrustumClipping())
+		{
+			/* The planes through the eye and the left, right, top, and bottom edges of the view plane */
+			clipPlanes = new double[][] {nearPlane,
+					{focalLength, 0, xCenter, xCenter*focalLength},
+					{-focalLength, 0, width - xCenter, (width - xCenter)*focalLength},
+					{0, focalLength, yCenter, yCenter*focalLength},
+					{0, -focalLength, height - yCenter, (height - yCenter)*focalLength}};
+		}
+		else
+		{
+			clipPlanes = new double[][] {nearPlane};
+		}
+		
+		DirectionalLight[] lights = view.getLights();
+		lightDirections = new double[3*lights.length];
+		lightIntensities = new double[lights.length];
+		ambient = view.getAmbient();
+		
+		for(int i = 0; i < lights.length; i ++)
+		{
+			lightDirections[3*i] = lights[i].getX();
+			lightDirections[3*i + 1] = lights[i].getY();
+			lightDirections[3*i + 2] = lights[i].getZ();
+			lightIntensities[i] = lights[i].getIntensity();
+		}
+	}
+	
+	/**
+	 * @return true if polygons are shaded by the lights of the view rather than by their incline
+	 */
+	public boolean isLit()
+	{
+		return lightIntensities.length > 0;
+	}
+	
+	/** Returns the brightness of a polygon with the given unit normal under the lights of the view
+	 * 
+	 * @param xNormal	the x-component of the normal of the polygon
+	 * @param yNormal	the y-component of the normal of the polygon
+	 * @param zNormal	the z-component of the normal of the polygon
+	 * @return the fraction of full brightness of the polygon
+	 */
+	public double getIntensity(double xNormal, double yNormal, double zNormal)
+	{
+		double intensity = ambient;
+		
+		for(int i = 0; i < lightIntensities.length; i ++)
+		{
+			double dot = xNormal*lightDirections[3*i] + yNormal*lightDirections[3*i + 1] + zNormal*lightDirections[3*i + 2];
+			
+			if(dot < 0)
+			{
+				intensity -= lightIntensities[i]*dot;
+			}
+		}
+		
+		return Math.min(1, intensity);
+	}
+	
+	/** Computes the brightness under the lights of the view of every face of a mesh at once, bringing each light in to the coordinates
+	 * of the mesh rather than each normal out of them
+	 * 
+	 * @param normals	the packed (x, y, z) unit normals of the faces of the mesh
+	 * @param faceCount	the number of faces of the mesh
+	 * @param model	the transformation of the mesh in to space, or null if the mesh lies in space as it is
+	 * @param intensities	the array the fraction of full brightness of each face is written to
+	 */
+	public void light(double[] normals, int faceCount, Transform3D model, double[] intensities)
+	{
+		Arrays.fill(intensities, 0, faceCount, ambient);
+		
+		/* The linear part of the inverse of the model transformation, by columns */
+		double[] inverse = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+		
+		if(model != null)
+		{
+			Transform3D modelInverse = model.inverse();
+			
+			for(int column = 0; column < 3; column ++)
+			{
+				double x = column == 0 ? 1 : 0, y = column == 1 ? 1 : 0, z = column == 2 ? 1 : 0;
+				
+				inverse[3*column] = modelInverse.transformX(x, y, z) - modelInverse.transformX(0, 0, 0);
+				inverse[3*column + 1] = modelInverse.transformY(x, y, z) - modelInverse.transformY(0, 0, 0);
+				inverse[3*column + 2] = modelInverse.transformZ(x, y, z) - modelInverse.transformZ(0, 0, 0);
+			}
+		}
+		
+		/* A transformation stretching space unequally along different axes changes the lengths of the normals it carries */
+		boolean stretched = model != null && !isSimilarity(inverse);
+		double similarityScale = Math.sqrt(inverse[0]*inverse[0] + inverse[1]*inverse[1] + inverse[2]*inverse[2]);
+		
+		for(int i = 0; i < lightIntensities.length; i ++)
+		{
+			double xLight = lightDirections[3*i];
+			double yLight = lightDirections[3*i + 1];
+			double zLight = lightDirections[3*i + 2];
+			
+			/* The normal n carried by the model is the inverse transpose applied to n, whose dot product with the light is n dotted with
+			 * the inverse applied to the light, divided by the length of the carried normal */
+			double x = (inverse[0]*xLight + inverse[3]*yLight + inverse[6]*zLight)/similarityScale;
+			double y = (inverse[1]*xLight + inverse[4]*yLight + inverse[7]*zLight)/similarityScale;
+			double z = (inverse[2]*xLight + inverse[5]*yLight + inverse[8]*zLight)/similarityScale;
+			
+			double intensity = lightIntensities[i];
+			
+			for(int face = 0; face < faceCount; face ++)
+			{
+				double xNormal = normals[3*face];
+				double yNormal = normals[3*face + 1];
+				double zNormal = normals[3*face + 2];
+				double dot = xNormal*x + yNormal*y + zNormal*z;
+				
+				if(stretched && dot != 0)
+				{
+					double xCarried = inverse[0]*xNormal + inverse[1]*yNormal + inverse[2]*zNormal;
+					double yCarried = inverse[3]*xNormal + inverse[4]*yNormal + inverse[5]*zNormal;
+					double zCarried = inverse[6]*xNormal + inverse[7]*yNormal + inverse[8]*zNormal;
+					
+					dot *= similarityScale/Math.sqrt(xCarried*xCarried + yCarried*yCarried + zCarried*zCarried);
+				}
+				
+				if(dot < 0)
+				{
+					intensities[face] -= intensity*dot;
+				}
+			}
+		}
+		
+		for(int face = 0; face < faceCount; face ++)
+		{
+			intensities[face] = Math.min(1, intensities[face]);
+		}
+	}
+	
+	/** Returns whether any part of the given sphere may be seen on the view plane, testing it against the planes through the eye and the
+	 * edges of the view plane and against the plane behind which polygons are not projected
+	 * 
+	 * @param x	the x-coordinate of the center of the sphere
+	 * @param y	the y-coordinate of the center of the sphere
+	 * @param z	the z-coordinate of the center of the sphere
+	 * @param radius	the radius of the sphere
+	 * @return false if the sphere lies entirely outside of the view
+	 */
+	public boolean isVisible(double x, double y, double z, double radius)
+	{
+		double xCamera = camera.transformX(x, y, z);
+		double yCamera = camera.transformY(x, y, z);
+		double zCamera = camera.transformZ(x, y, z) + focalLength;
+		
+		if(zCamera - focalLength + radius < NEAR_PLANE)
+		{
+			return false;
+		}
+		
+		/* Signed distances to the planes through the eye and the left, right, top, and bottom edges of the view plane */
+		if((focalLength*xCamera + xCenter*zCamera)/Math.hypot(focalLength, xCenter) < -radius
+				|| ((width - xCenter)*zCamera - focalLength*xCamera)/Math.hypot(focalLength, width - xCenter) < -radius
+				|| (focalLength*yCamera + yCenter*zCamera)/Math.hypot(focalLength, yCenter) < -radius
+				|| ((height - yCenter)*zCamera - focalLength*yCamera)/Math.hypot(focalLength, height - yCenter) < -radius)
+		{
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/** Projects the polygon whose vertices are given in camera coordinates on to the view plane, clipping away the parts of it behind
+	 * the near plane, or outside of the view if the view clips to its frustum
+	 * 
+	 * @param cameraCoords	the packed (x, y, z) camera coordinates of the vertices the polygon refers to
+	 * @param indices	the vertex indices of the polygon, or null if the polygon consists of the vertices in order
+	 * @param start	the offset of the first vertex index of the polygon
+	 * @param end	the offset following the last vertex index of the polygon
+	 * @param color	the color of the polygon
+	 * @return the Projection object resulting from the projection of the polygon on to the view plane
+	 */
+	public PolygonProjection project(double[] cameraCoords, int[] indices, int start, int end, Color color)
+	{
+		return project(cameraCoords, indices, start, end, color, Double.NaN);
+	}
+	
+	/** Projects the polygon whose vertices are given in camera coordinates on to the view plane with the given brightness, clipping away
+	 * the parts of it behind the near plane, or outside of the view if the view clips to its frustum
+	 * 
+	 * @param cameraCoords	the packed (x, y, z) camera coordinates of the vertices the polygon refers to
+	 * @param indices	the vertex indices of the polygon, or null if the polygon consists of the vertices in order
+	 * @param start	the offset of the first vertex index of the polygon
+	 * @param end	the offset following the last vertex index of the polygon
+	 * @param color	the color of the polygon
+	 * @param intensity	the fraction of full brightness of the polygon, or NaN if the polygon is shaded by its incline
+	 * @return the Projection object resulting from the projection of the polygon on to the view plane
+	 */
+	public PolygonProjection project(double[] cameraCoords, int[] indices, int start, int end, Color color, double intensity)
+	{
+		for(double[] plane : clipPlanes)
+		{
+			for(int i = start; i < end; i ++)
+			{
+				int vertex = 3*(indices == null ? i : indices[i]);
+				
+				if(plane[0]*cameraCoords[vertex] + plane[1]*cameraCoords[vertex + 1] + plane[2]*cameraCoords[vertex + 2] + plane[3] < 0)
+				{
+					double[] clipped = clip(cameraCoords, indices, start, end);
+					
+					if(clipped.length < 9)
+					{
+						return new PolygonProjection(new Point2D[0]);
+					}
+					
+					return projectUnclipped(clipped, null, 0, clipped.length/3, color, intensity);
+				}
+			}
+		}
+		
+		return projectUnclipped(cameraCoords, indices, start, end, color, intensity);
+	}
+	
+	/** Clips the polygon whose vertices are given in camera coordinates against each of the clip planes in turn
+	 * 
+	 * @param cameraCoords	the packed (x, y, z) camera coordinates of the vertices the polygon refers to
+	 * @param indices	the vertex indices of the polygon, or null if the polygon consists of the vertices in order
+	 * @param start	the offset of the first vertex index of the polygon
+	 * @param end	the offset following the last vertex index of the polygon
+	 * @return the packed (x, y, z) camera coordinates of the vertices of the clipped polygon, fewer than three if nothing remains
+	 */
+	private double[] clip(double[] cameraCoords, int[] indices, int start, int end)
+	{
+		double[] polygon = new double[3*(end - start)];
+		
+		for(int i = start; i < end; i ++)
+		{
+			System.arraycopy(cameraCoords, 3*(indices == null ? i : indices[i]), polygon, 3*(i - start), 3);
+		}
+		
+		for(double[] plane : clipPlanes)
+		{
+			int pointCount = polygon.length/3;
+			double[] clipped = new double[6*pointCount];
+			int clippedLength = 0;
+			
+			for(int i = 0; i < pointCount; i ++)
+			{
+				int current = 3*i;
+				int next = 3*((i + 1) % pointCount);
+				
+				double currentDist = plane[0]*polygon[current] + plane[1]*polygon[current + 1] + plane[2]*polygon[current + 2] + plane[3];
+				double nextDist = plane[0]*polygon[next] + plane[1]*polygon[next + 1] + plane[2]*polygon[next + 2] + plane[3];
+				
+				/* Keeps every point inside the plane and adds the intersection of every edge crossing it */
+				if(currentDist >= 0)
+				{
+					System.arraycopy(polygon, current, clipped, clippedLength, 3);
+					clippedLength += 3;
+				}
+				if((currentDist >= 0) != (nextDist >= 0))
+				{
+					double t = currentDist/(currentDist - nextDist);
+					
+					for(int j = 0; j < 3; j ++)
+					{
+						clipped[clippedLength ++] = polygon[current + j] + t*(polygon[next + j] - polygon[current + j]);
+					}
+				}
+			}
+			
+			polygon = Arrays.copyOf(clipped, clippedLength);
+		}
+		
+		return polygon;
+	}
+	
+	/** Projects the polygon whose vertices are given in camera coordinates, all of which lie inside of the clip planes, on to the view plane
+	 * 
+	 * @param cameraCoords	the packed (x, y, z) camera coordinates of the vertices the polygon refers to
+	 * @param indices	the vertex indices of the polygon, or null if the polygon consists of the vertices in order
+	 * @param start	the offset of the first vertex index of the polygon
+	 * @param end	the offset following the last vertex index of the polygon
+	 * @param color	the color of the polygon
+	 * @param intensity	the fraction of full brightness of the polygon, or NaN if the polygon is shaded by its incline
+	 * @return the Projection object resulting from the projection of the polygon on to the view plane
+	 */
+	private PolygonProjection projectUnclipped(double[] cameraCoords, int[] indices, int start, int end, Color color, double intensity)
+	{
+		boolean lit = !Double.isNaN(intensity);
+		
+		int pointCount = end - start;
+		double[] xPoints = new double[pointCount];
+		double[] yPoints = new double[pointCount];
+		double[] scales = new double[pointCount];
+		
+		double maxX = 0, maxY = 0, maxZ = Double.NEGATIVE_INFINITY;
+		double minX = 0, minY = 0, minZ = Double.POSITIVE_INFINITY;
+		
+		double zSum = 0;
+		
+		for(int i = 0; i < pointCount; i ++)
+		{
+			int vertex = 3*(indices == null ? start + i : indices[start + i]);
+			
+			double x = cameraCoords[vertex];
+			double y = cameraCoords[vertex + 1];
+			double z = cameraCoords[vertex + 2];
+			
+			/* Projection perspective calculations */
+			double perspectiveMod = focalLength/(z + focalLength);
+			xPoints[i] = perspectiveMod*x + xCenter;
+			yPoints[i] = perspectiveMod*y + yCenter;
+			scales[i] = perspectiveMod;
+			
+			/* Projection incline calculations, needed only to shade polygons not lit */
+			if(!lit)
+			{
+				if(z > maxZ)
+				{
+					maxX = x;
+					maxY = y;
+					maxZ = z;
+				}
+				if(z <= minZ)
+				{
+					minX = x;
+					minY = y;
+					minZ = z;
+				}
+			}
+			
+			/* Projection priority calculations */
+			zSum += z;
+		}
+		
+		double priority = zSum/pointCount;
+		
+		if(lit)
+		{
+			return new PolygonProjection(xPoints, yPoints, scales, priority, 0, ShadePalette.getLevel((1 - intensity)*UNLIT_DARKENING), color);
+		}
+		
+		double incline = Math.abs(maxZ - minZ)/Math.sqrt((maxX - minX)*(maxX - minX) + (maxY - minY)*(maxY - minY));
+		
+		return new PolygonProjection(xPoints, yPoints, scales, priority, incline, color);
+	}
+	
+	/** Returns whether the given linear transformation is a rotation or reflection combined with a scaling equal along every axis
+	 * 
+	 * @param matrix	the linear transformation, by columns
+	 * @return true if the columns of the matrix are orthogonal and of equal length
+	 */
+	private static boolean isSimilarity(double[] matrix)
+	{
+		double[] lengths = new double[3];
+		
+		for(int i = 0; i < 3; i ++)
+		{
+			lengths[i] = matrix[3*i]*matrix[3*i] + matrix[3*i + 1]*matrix[3*i + 1] + matrix[3*i + 2]*matrix[3*i + 2];
+		}
+		
+		double tolerance = 1e-9*lengths[0];
+		
+		return Math.abs(lengths[1] - lengths[0]) <= tolerance && Math.abs(lengths[2] - lengths[0]) <= tolerance
+				&& Math.abs(matrix[0]*matrix[3] + matrix[1]*matrix[4] + matrix[2]*matrix[5]) <= tolerance
+				&& Math.abs(matrix[0]*matrix[6] + matrix[1]*matrix[7] + matrix[2]*matrix[8]) <= tolerance
+				&& Math.abs(matrix[3]*matrix[6] + matrix[4]*matrix[7] + matrix[5]*matrix[8]) <= tolerance;
+	}
+	
+	/**
+	 * @return the transformation of space in to the coordinates of the camera
+	 */
+	public Transform3D getCameraTransform()
+	{
+		return camera;
+	}
+	
+	/**
+	 * @return the point in space from which the perspective of this transformation is seen
+	 */
+	public Point3D getEye()
+	{
+		return eye;
+	}
+	
+	/**
+	 * @return the width of the view plane
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return the height of the view plane
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	/**
+	 * @return the focal length
+	 */
+	public double getFocalLength()
+	{
+		return focalLength;
+	}
+	
+	/**
+	 * @return the x-coordinate of the center of the view plane
+	 */
+	public double getXCenter()
+	{
+		return xCenter;
+	}
+	
+	/**
+	 * @return the y-coordinate of the center of the view plane
+	 */
+	public double getYCenter()
+	{
+		return yCenter;
+	}
+}
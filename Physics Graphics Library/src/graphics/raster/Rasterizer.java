@@ -0,0 +1,617 @@
+package graphics.raster;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graphics.projection.IdBuffer;
+import graphics.projection.PolygonProjection;
+
+/** A class drawing polygon projections directly in to the pixels of an image, keeping the perspective scale of the nearest point drawn at
+ * every pixel so that projections hide one another correctly in any drawing order; projections are assumed to be convex
+ * 
+ * In tiled mode, the image is divided in to square tiles, each projection is listed in every tile its bounds overlap, and the tiles are
+ * drawn in parallel; as each tile draws its projections in their given order, the image is the same as when drawn serially
+ * 
+ * Given an IdBuffer, the rasterizer also writes the identifier of the nearest projection at every pixel, found by the same depth test
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class Rasterizer
+{
+	/** The fraction of its perspective scale by which an outline may lie behind the nearest point drawn and still be drawn over it */
+	private static final double OUTLINE_TOLERANCE = 1e-3;
+	
+	/** The width and height of the tiles drawn in parallel in tiled mode */
+	private static final int TILE_SIZE = 64;
+	
+	/** The width of the image drawn on */
+	private final int width;
+	
+	/** The height of the image drawn on */
+	private final int height;
+	
+	/** The image drawn on */
+	private final BufferedImage image;
+	
+	/** The RGB colors of the pixels of the image, one row after another */
+	private final int[] pixels;
+	
+	/** The perspective scale of the nearest point drawn at each pixel, zero where nothing has been drawn */
+	private final float[] depths;
+	
+	/** The value representing whether the outlines of projections are drawn */
+	private boolean outlines;
+	
+	/** The buffer the identifiers of the projections drawn are written to, or null if none is */
+	private IdBuffer idBuffer;
+	
+	/** The identifiers of the projections drawn at each pixel, or null if no identifiers are written */
+	private int[] ids;
+	
+	/** The value representing whether projections are drawn tile by tile in parallel */
+	private boolean tiled;
+	
+	/** The number of columns of tiles */
+	private final int tileColumns;
+	
+	/** The number of rows of tiles */
+	private final int tileRows;
+	
+	/** The projections being drawn in tiled mode */
+	private PolygonProjection[] tileProjections;
+	
+	/** The fill color of each projection being drawn in tiled mode */
+	private int[] fillRGBs = new int[0];
+	
+	/** The outline color of each projection being drawn in tiled mode */
+	private int[] edgeRGBs = new int[0];
+	
+	/** The identifier of each projection being drawn in tiled mode */
+	private int[] projectionIds = new int[0];
+	
+	/** The first and following last column and row of the tiles each projection being drawn in tiled mode overlaps */
+	private int[] tileBounds = new int[0];
+	
+	/** The offset in the tile entries of the first projection of each tile, followed by the total number of entries */
+	private final int[] tileStarts;
+	
+	/** The indices of the projections overlapping each tile, in drawing order, one tile after another */
+	private int[] tileEntries = new int[0];
+	
+	/** Parameterized constructor, initializes this rasterizer to draw on a new image of the given size
+	 * 
+	 * @param width	the width of the image
+	 * @param height	the height of the image
+	 */
+	public Rasterizer(int width, int height)
+	{
+		this.width = width;
+		this.height = height;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		this.depths = new float[width*height];
+		this.outlines = true;
+		this.tileColumns = (width + TILE_SIZE - 1)/TILE_SIZE;
+		this.tileRows = (height + TILE_SIZE - 1)/TILE_SIZE;
+		this.tileStarts = new int[tileColumns*tileRows + 1];
+	}
+	
+	/** Fills the image with the given color and forgets everything drawn on it
+	 * 
+	 * @param background	the color the image is filled with
+	 */
+	public void clear(Color background)
+	{
+		Arrays.fill(pixels, background.getRGB() & 0xFFFFFF);
+		Arrays.fill(depths, 0);
+		
+		if(idBuffer != null)
+		{
+			idBuffer.clear();
+		}
+	}
+	
+	/** Draws the given projections, in any order
+	 * 
+	 * @param projections	the projections drawn
+	 */
+	public void draw(PolygonProjection[] projections)
+	{
+		if(tiled)
+		{
+			drawTiled(projections);
+			return;
+		}
+		
+		for(PolygonProjection projection : projections)
+		{
+			draw(projection);
+		}
+	}
+	
+	/** Draws the given projection wherever it is nearer than what has already been drawn
+	 * 
+	 * @param projection	the projection drawn
+	 */
+	public void draw(PolygonProjection projection)
+	{
+		int id = idBuffer == null ? IdBuffer.NONE : idBuffer.add(projection);
+		
+		if(projection.getPointCount() < 3)
+		{
+			return;
+		}
+		
+		draw(projection, projection.getFillColor().getRGB() & 0xFFFFFF, projection.getEdgeColor().getRGB() & 0xFFFFFF, id, 0, 0, width, height);
+	}
+	
+	/** Lists each of the given projections in every tile it may cover and draws the tiles in parallel
+	 * 
+	 * @param projections	the projections drawn
+	 */
+	private void drawTiled(PolygonProjection[] projections)
+	{
+		int projectionCount = projections.length;
+		
+		if(fillRGBs.length < projectionCount)
+		{
+			int capacity = Math.max(projectionCount, 2*fillRGBs.length);
+			fillRGBs = new int[capacity];
+			edgeRGBs = new int[capacity];
+			projectionIds = new int[capacity];
+			tileBounds = new int[4*capacity];
+		}
+		
+		Arrays.fill(tileStarts, 0);
+		
+		/* Counts the projections overlapping each tile, storing the tiles they overlap */
+		for(int i = 0; i < projectionCount; i ++)
+		{
+			PolygonProjection projection = projections[i];
+			int pointCount = projection.getPointCount();
+			
+			projectionIds[i] = idBuffer == null ? IdBuffer.NONE : idBuffer.add(projection);
+			tileBounds[4*i] = 0;
+			tileBounds[4*i + 1] = 0;
+			tileBounds[4*i + 2] = 0;
+			tileBounds[4*i + 3] = 0;
+			
+			if(pointCount < 3)
+			{
+				continue;
+			}
+			
+			double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			
+			for(int j = 0; j < pointCount; j ++)
+			{
+				minX = Math.min(minX, projection.getX(j));
+				minY = Math.min(minY, projection.getY(j));
+				maxX = Math.max(maxX, projection.getX(j));
+				maxY = Math.max(maxY, projection.getY(j));
+			}
+			
+			/* Widened by a pixel to hold the rounded ends of the outlines */
+			int firstColumn = (int) Math.max(0, Math.floor((minX - 1)/TILE_SIZE));
+			int firstRow = (int) Math.max(0, Math.floor((minY - 1)/TILE_SIZE));
+			int lastColumn = (int) Math.min(tileColumns - 1, Math.floor((maxX + 1)/TILE_SIZE));
+			int lastRow = (int) Math.min(tileRows - 1, Math.floor((maxY + 1)/TILE_SIZE));
+			
+			if(firstColumn > lastColumn || firstRow > lastRow)
+			{
+				continue;
+			}
+			
+			tileBounds[4*i] = firstColumn;
+			tileBounds[4*i + 1] = firstRow;
+			tileBounds[4*i + 2] = lastColumn + 1;
+			tileBounds[4*i + 3] = lastRow + 1;
+			
+			for(int row = firstRow; row <= lastRow; row ++)
+			{
+				for(int column = firstColumn; column <= lastColumn; column ++)
+				{
+					tileStarts[row*tileColumns + column + 1] ++;
+				}
+			}
+			
+			fillRGBs[i] = projection.getFillColor().getRGB() & 0xFFFFFF;
+			edgeRGBs[i] = projection.getEdgeColor().getRGB() & 0xFFFFFF;
+		}
+		
+		for(int tile = 0; tile < tileColumns*tileRows; tile ++)
+		{
+			tileStarts[tile + 1] += tileStarts[tile];
+		}
+		
+		int entryCount = tileStarts[tileColumns*tileRows];
+		
+		if(tileEntries.length < entryCount)
+		{
+			tileEntries = new int[Math.max(entryCount, 2*tileEntries.length)];
+		}
+		
+		/* Lists the projections of each tile in order, using the start of each tile as its insertion point */
+		for(int i = 0; i < projectionCount; i ++)
+		{
+			for(int row = tileBounds[4*i + 1]; row < tileBounds[4*i + 3]; row ++)
+			{
+				for(int column = tileBounds[4*i]; column < tileBounds[4*i + 2]; column ++)
+				{
+					tileEntries[tileStarts[row*tileColumns + column] ++] = i;
+				}
+			}
+		}
+		
+		/* Every insertion point now holds the end of its tile, which is the start of the following tile */
+		System.arraycopy(tileStarts, 0, tileStarts, 1, tileColumns*tileRows);
+		tileStarts[0] = 0;
+		
+		tileProjections = projections;
+		ForkJoinPool.commonPool().invoke(new TileTask(0, tileColumns*tileRows));
+		tileProjections = null;
+	}
+	
+	/** Draws the projections listed in the given tile in their listed order
+	 * 
+	 * @param tile	the index of the tile drawn, one row after another
+	 */
+	private void drawTile(int tile)
+	{
+		int xMin = (tile % tileColumns)*TILE_SIZE;
+		int yMin = (tile/tileColumns)*TILE_SIZE;
+		int xMax = Math.min(width, xMin + TILE_SIZE);
+		int yMax = Math.min(height, yMin + TILE_SIZE);
+		
+		for(int entry = tileStarts[tile]; entry < tileStarts[tile + 1]; entry ++)
+		{
+			int i = tileEntries[entry];
+			draw(tileProjections[i], fillRGBs[i], edgeRGBs[i], projectionIds[i], xMin, yMin, xMax, yMax);
+		}
+	}
+	
+	/** Draws the part of the given projection lying within the given rectangle of pixels with the given colors
+	 * 
+	 * @param projection	the projection drawn
+	 * @param fillRGB	the color the projection is filled with
+	 * @param edgeRGB	the color the outline of the projection is drawn with
+	 * @param id	the identifier of the projection
+	 * @param xMin	the smallest x-coordinate of the pixels drawn
+	 * @param yMin	the smallest y-coordinate of the pixels drawn
+	 * @param xMax	the x-coordinate following the largest x-coordinate of the pixels drawn
+	 * @param yMax	the y-coordinate following the largest y-coordinate of the pixels drawn
+	 */
+	private void draw(PolygonProjection projection, int fillRGB, int edgeRGB, int id, int xMin, int yMin, int xMax, int yMax)
+	{
+		int pointCount = projection.getPointCount();
+		
+		if(pointCount < 3)
+		{
+			return;
+		}
+		
+		/* Triangulation of the projection as a fan around its first point */
+		for(int i = 1; i < pointCount - 1; i ++)
+		{
+			fillTriangle(projection.getX(0), projection.getY(0), projection.getScale(0),
+						 projection.getX(i), projection.getY(i), projection.getScale(i),
+						 projection.getX(i + 1), projection.getY(i + 1), projection.getScale(i + 1),
+						 fillRGB, id, xMin, yMin, xMax, yMax);
+		}
+		
+		if(outlines)
+		{
+			for(int i = 0; i < pointCount; i ++)
+			{
+				int next = (i + 1) % pointCount;
+				
+				drawLine(projection.getXPixel(i), projection.getYPixel(i), projection.getScale(i),
+						 projection.getXPixel(next), projection.getYPixel(next), projection.getScale(next),
+						 edgeRGB, id, xMin, yMin, xMax, yMax);
+			}
+		}
+	}
+	
+	/** Fills the pixels whose centers lie in the given triangle and within the given rectangle wherever the triangle is nearest, interpolating
+	 * the perspective scale linearly between its corners
+	 * 
+	 * @param x0	the x-coordinate of the first corner
+	 * @param y0	the y-coordinate of the first corner
+	 * @param s0	the perspective scale of the first corner
+	 * @param x1	the x-coordinate of the second corner
+	 * @param y1	the y-coordinate of the second corner
+	 * @param s1	the perspective scale of the second corner
+	 * @param x2	the x-coordinate of the third corner
+	 * @param y2	the y-coordinate of the third corner
+	 * @param s2	the perspective scale of the third corner
+	 * @param rgb	the color the triangle is filled with
+	 * @param id	the identifier of the projection the triangle is part of
+	 * @param xMin	the smallest x-coordinate of the pixels drawn
+	 * @param yMin	the smallest y-coordinate of the pixels drawn
+	 * @param xMax	the x-coordinate following the largest x-coordinate of the pixels drawn
+	 * @param yMax	the y-coordinate following the largest y-coordinate of the pixels drawn
+	 */
+	private void fillTriangle(double x0, double y0, double s0, double x1, double y1, double s1, double x2, double y2, double s2,
+							  int rgb, int id, int xMin, int yMin, int xMax, int yMax)
+	{
+		double area = (x1 - x0)*(y2 - y0) - (x2 - x0)*(y1 - y0);
+		
+		if(area == 0 || Double.isNaN(area))
+		{
+			return;
+		}
+		
+		/* Orders the corners counterclockwise so that the interior lies on the positive side of every edge */
+		if(area < 0)
+		{
+			double x = x1, y = y1, s = s1;
+			x1 = x2; y1 = y2; s1 = s2;
+			x2 = x; y2 = y; s2 = s;
+			area = -area;
+		}
+		
+		int left = (int) Math.max(xMin, Math.floor(Math.min(x0, Math.min(x1, x2))));
+		int right = (int) Math.min(xMax - 1, Math.ceil(Math.max(x0, Math.max(x1, x2))));
+		int top = (int) Math.max(yMin, Math.floor(Math.min(y0, Math.min(y1, y2))));
+		int bottom = (int) Math.min(yMax - 1, Math.ceil(Math.max(y0, Math.max(y1, y2))));
+		
+		if(left > right || top > bottom)
+		{
+			return;
+		}
+		
+		/* Each edge function is proportional to the weight of the opposite corner and changes by a constant step between pixels */
+		double xStep0 = y1 - y2, yStep0 = x2 - x1;
+		double xStep1 = y2 - y0, yStep1 = x0 - x2;
+		double xStep2 = y0 - y1, yStep2 = x1 - x0;
+		
+		double xCenter = left + 0.5;
+		double yCenter = top + 0.5;
+		
+		double rowEdge0 = xStep0*(xCenter - x1) + yStep0*(yCenter - y1);
+		double rowEdge1 = xStep1*(xCenter - x2) + yStep1*(yCenter - y2);
+		double rowEdge2 = xStep2*(xCenter - x0) + yStep2*(yCenter - y0);
+		
+		for(int y = top; y <= bottom; y ++)
+		{
+			double edge0 = rowEdge0;
+			double edge1 = rowEdge1;
+			double edge2 = rowEdge2;
+			int index = y*width + left;
+			
+			for(int x = left; x <= right; x ++)
+			{
+				if(edge0 >= 0 && edge1 >= 0 && edge2 >= 0)
+				{
+					float scale = (float) ((edge0*s0 + edge1*s1 + edge2*s2)/area);
+					
+					if(scale > depths[index])
+					{
+						depths[index] = scale;
+						pixels[index] = rgb;
+						
+						if(ids != null)
+						{
+							ids[index] = id;
+						}
+					}
+				}
+				
+				edge0 += xStep0;
+				edge1 += xStep1;
+				edge2 += xStep2;
+				index ++;
+			}
+			
+			rowEdge0 += yStep0;
+			rowEdge1 += yStep1;
+			rowEdge2 += yStep2;
+		}
+	}
+	
+	/** Draws the pixels of the line between the given points lying within the given rectangle, wherever the line is not hidden
+	 * 
+	 * @param x0	the x-coordinate of the start of the line
+	 * @param y0	the y-coordinate of the start of the line
+	 * @param s0	the perspective scale of the start of the line
+	 * @param x1	the x-coordinate of the end of the line
+	 * @param y1	the y-coordinate of the end of the line
+	 * @param s1	the perspective scale of the end of the line
+	 * @param rgb	the color the line is drawn with
+	 * @param id	the identifier of the projection the line is the outline of
+	 * @param xMin	the smallest x-coordinate of the pixels drawn
+	 * @param yMin	the smallest y-coordinate of the pixels drawn
+	 * @param xMax	the x-coordinate following the largest x-coordinate of the pixels drawn
+	 * @param yMax	the y-coordinate following the largest y-coordinate of the pixels drawn
+	 */
+	private void drawLine(int x0, int y0, double s0, int x1, int y1, double s1, int rgb, int id, int xMin, int yMin, int xMax, int yMax)
+	{
+		if((x0 < xMin && x1 < xMin) || (x0 >= xMax && x1 >= xMax) || (y0 < yMin && y1 < yMin) || (y0 >= yMax && y1 >= yMax))
+		{
+			return;
+		}
+		
+		long dx = (long) x1 - x0;
+		long dy = (long) y1 - y0;
+		long steps = Math.max(Math.abs(dx), Math.abs(dy));
+		
+		/* The line is clipped to the rectangle widened by half a pixel, within which its points round to pixels of the rectangle, and
+		 * only the steps of the clipped line are taken, one further at each end absorbing rounding error; the steps keep the spacing of
+		 * the whole line so that every rectangle the line crosses draws the same pixels */
+		double enter = 0;
+		double exit = 1;
+		
+		if(dx != 0)
+		{
+			double a = (xMin - 0.5 - x0)/dx;
+			double b = (xMax - 0.5 - x0)/dx;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(dy != 0)
+		{
+			double a = (yMin - 0.5 - y0)/dy;
+			double b = (yMax - 0.5 - y0)/dy;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(enter > exit)
+		{
+			return;
+		}
+		
+		long first = Math.max(0, (long) Math.floor(enter*steps) - 1);
+		long last = Math.min(steps, (long) Math.ceil(exit*steps) + 1);
+		
+		for(long i = first; i <= last; i ++)
+		{
+			double t = steps == 0 ? 0 : (double) i/steps;
+			int x = (int) Math.round(x0 + t*dx);
+			int y = (int) Math.round(y0 + t*dy);
+			
+			if(x < xMin || x >= xMax || y < yMin || y >= yMax)
+			{
+				continue;
+			}
+			
+			int index = y*width + x;
+			double scale = s0 + t*(s1 - s0);
+			
+			if(scale*(1 + OUTLINE_TOLERANCE) >= depths[index])
+			{
+				depths[index] = (float) Math.max(scale, depths[index]);
+				pixels[index] = rgb;
+				
+				if(ids != null)
+				{
+					ids[index] = id;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the image drawn on
+	 */
+	public BufferedImage getImage()
+	{
+		return image;
+	}
+	
+	/**
+	 * @return the width of the image drawn on
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+	
+	/**
+	 * @return the height of the image drawn on
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+	
+	/**
+	 * @return true if the outlines of projections are drawn
+	 */
+	public boolean isOutlines()
+	{
+		return outlines;
+	}
+	
+	/**
+	 * @param outlines	the value representing whether the outlines of projections are drawn
+	 */
+	public void setOutlines(boolean outlines)
+	{
+		this.outlines = outlines;
+	}
+	
+	/**
+	 * @return the buffer the identifiers of the projections drawn are written to, or null if none is
+	 */
+	public IdBuffer getIdBuffer()
+	{
+		return idBuffer;
+	}
+	
+	/** Sets the buffer the identifiers of the projections drawn are written to, which is cleared along with the image
+	 * 
+	 * @param idBuffer	the buffer written to, or null if no identifiers are to be written
+	 * @throws IllegalArgumentException if the buffer is not the size of the image
+	 */
+	public void setIdBuffer(IdBuffer idBuffer)
+	{
+		if(idBuffer != null && (idBuffer.getWidth() != width || idBuffer.getHeight() != height))
+		{
+			throw new IllegalArgumentException("Identifier buffer must be the size of the image");
+		}
+		
+		this.idBuffer = idBuffer;
+		this.ids = idBuffer == null ? null : idBuffer.getIds();
+	}
+	
+	/**
+	 * @return true if projections are drawn tile by tile in parallel
+	 */
+	public boolean isTiled()
+	{
+		return tiled;
+	}
+	
+	/**
+	 * @param tiled	the value representing whether projections are drawn tile by tile in parallel
+	 */
+	public void setTiled(boolean tiled)
+	{
+		this.tiled = tiled;
+	}
+	
+	/** A task drawing a range of tiles, dividing it between parallel subtasks until single tiles remain
+	 * 
+	 * @author Benjamin Cohen-Wang
+	 */
+	private class TileTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		/** The index of the first tile drawn */
+		private final int first;
+		
+		/** The index following the last tile drawn */
+		private final int end;
+		
+		/** Parameterized constructor, initializes this task to draw the given range of tiles
+		 * 
+		 * @param first	the index of the first tile drawn
+		 * @param end	the index following the last tile drawn
+		 */
+		TileTask(int first, int end)
+		{
+			this.first = first;
+			this.end = end;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if(end - first == 1)
+			{
+				drawTile(first);
+			}
+			else if(end - first > 1)
+			{
+				int middle = (first + end)/2;
+				invokeAll(new TileTask(first, middle), new TileTask(middle, end));
+			}
+		}
+	}
+}
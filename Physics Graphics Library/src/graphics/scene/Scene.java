@@ -0,0 +1,265 @@
+package graphics.scene;
+
+import java.awt.Graphics;
+import java.util.ArrayList;
+
+import graphics.polyhedron.Polyhedron3D;
+import graphics.polyhedron.PolyhedronInstance;
+import graphics.projection.DepthSorter;
+import graphics.projection.IdBuffer;
+import graphics.projection.OcclusionBuffer;
+import graphics.projection.PolygonProjection;
+import graphics.projection.View;
+import graphics.raster.Rasterizer;
+
+/** A class representing a collection of polyhedra in 3D space which are projected and drawn together
+ * 
+ * @author Benjamin Cohen-Wang
+ */
+public class Scene
+{
+	/** The polyhedra comprising this scene */
+	private ArrayList<Polyhedron3D> polyhedra;
+	
+	/** The placements of shared polyhedra comprising this scene */
+	private ArrayList<PolyhedronInstance> instances;
+	
+	/** The sorter ordering the projections of this scene for drawing, repairing the order of the previous frame */
+	private DepthSorter sorter;
+	
+	/** The value representing whether projections lying entirely behind nearer ones are discarded before drawing */
+	private boolean occlusionCulling;
+	
+	/** The record of the parts of the view hidden by the projections tested so far, created for the size of the view */
+	private OcclusionBuffer occlusionBuffer;
+	
+	/** The indices of the projections found visible, from nearest to farthest */
+	private int[] visibleOrder = new int[0];
+	
+	/** Default constructor, initializes this scene to contain no polyhedra
+	 * 
+	 */
+	public Scene()
+	{
+		polyhedra = new ArrayList<Polyhedron3D>();
+		instances = new ArrayList<PolyhedronInstance>();
+		sorter = new DepthSorter();
+	}
+	
+	/** Adds the given polyhedron to this scene
+	 * 
+	 * @param polyhedron	the polyhedron added
+	 */
+	public void add(Polyhedron3D polyhedron)
+	{
+		polyhedra.add(polyhedron);
+	}
+	
+	/** Removes the given polyhedron from this scene
+	 * 
+	 * @param polyhedron	the polyhedron removed
+	 * @return true if this scene contained the polyhedron
+	 */
+	public boolean remove(Polyhedron3D polyhedron)
+	{
+		return polyhedra.remove(polyhedron);
+	}
+	
+	/** Adds the given placement of a shared polyhedron to this scene
+	 * 
+	 * @param instance	the instance added
+	 */
+	public void add(PolyhedronInstance instance)
+	{
+		instances.add(instance);
+	}
+	
+	/** Removes the given placement of a shared polyhedron from this scene
+	 * 
+	 * @param instance	the instance removed
+	 * @return true if this scene contained the instance
+	 */
+	public boolean remove(PolyhedronInstance instance)
+	{
+		return instances.remove(instance);
+	}
+	
+	/** Returns the projections of the polygons of every polyhedron and instance in this scene, each polyhedron reusing its previous projection if the view has not changed
+	 * 
+	 * @param view	The View that this scene is being looked at from
+	 * @return the projections of all of the polygons of this scene, in no particular order
+	 */
+	public PolygonProjection[] getProjections(View view)
+	{
+		ArrayList<PolygonProjection[]> polyhedronProjections = new ArrayList<PolygonProjection[]>(polyhedra.size() + instances.size());
+		int projectionCount = 0;
+		
+		for(Polyhedron3D polyhedron : polyhedra)
+		{
+			PolygonProjection[] projections = polyhedron.getProjection(view).getProjections();
+			polyhedronProjections.add(projections);
+			projectionCount += projections.length;
+		}
+		
+		for(PolyhedronInstance instance : instances)
+		{
+			PolygonProjection[] projections = instance.getProjection(view).getProjections();
+			polyhedronProjections.add(projections);
+			projectionCount += projections.length;
+		}
+		
+		PolygonProjection[] projections = new PolygonProjection[projectionCount];
+		int index = 0;
+		
+		for(PolygonProjection[] polyhedronProjection : polyhedronProjections)
+		{
+			System.arraycopy(polyhedronProjection, 0, projections, index, polyhedronProjection.length);
+			index += polyhedronProjection.length;
+		}
+		
+		return projections;
+	}
+	
+	/** Draws this scene on the given graphics object, ordering the polygons of all of its polyhedra together from farthest to nearest
+	 * 
+	 * @param graphics	the graphics object this scene will be drawn on
+	 * @param view	The View that this scene is being looked at from
+	 */
+	public void draw(Graphics graphics, View view)
+	{
+		draw(graphics, view, null);
+	}
+	
+	/** Draws this scene on the given graphics object, ordering the polygons of all of its polyhedra together from farthest to nearest,
+	 * writing the identifier each polygon is given by the given buffer over the pixels it fills; the buffer is cleared first, so that it
+	 * holds only the polygons of this frame
+	 * 
+	 * @param graphics	the graphics object this scene will be drawn on
+	 * @param view	The View that this scene is being looked at from
+	 * @param ids	the buffer the identifiers of the polygons are written to, or null if none is
+	 */
+	public void draw(Graphics graphics, View view, IdBuffer ids)
+	{
+		if(ids != null)
+		{
+			ids.clear();
+		}
+		
+		PolygonProjection[] projections = getProjections(view);
+		int[] order = sorter.sortCoherent(projections, projections.length);
+		
+		if(occlusionCulling)
+		{
+			int visibleCount = cull(projections, order, view);
+			
+			for(int i = visibleCount - 1; i >= 0; i --)
+			{
+				projections[visibleOrder[i]].draw(graphics, ids);
+			}
+			
+			return;
+		}
+		
+		for(int i = projections.length - 1; i >= 0; i --)
+		{
+			projections[order[i]].draw(graphics, ids);
+		}
+	}
+	
+	/** Draws this scene with the given rasterizer, which hides polygons behind nearer ones at every pixel so that no ordering is needed;
+	 * the image of the rasterizer should be cleared first
+	 * 
+	 * @param rasterizer	the rasterizer this scene will be drawn with
+	 * @param view	The View that this scene is being looked at from
+	 */
+	public void draw(Rasterizer rasterizer, View view)
+	{
+		PolygonProjection[] projections = getProjections(view);
+		
+		if(occlusionCulling)
+		{
+			int visibleCount = cull(projections, sorter.sortCoherent(projections, projections.length), view);
+			
+			/* Drawn from nearest to farthest, so that fewer pixels are drawn over */
+			PolygonProjection[] visibles = new PolygonProjection[visibleCount];
+			
+			for(int i = 0; i < visibleCount; i ++)
+			{
+				visibles[i] = projections[visibleOrder[i]];
+			}
+			
+			projections = visibles;
+		}
+		
+		rasterizer.draw(projections);
+	}
+	
+	/** Tests the given projections from nearest to farthest against the parts of the view hidden by the nearer ones, listing the
+	 * indices of those which may be seen from nearest to farthest
+	 * 
+	 * @param projections	the projections tested
+	 * @param order	the indices of the projections from nearest to farthest
+	 * @param view	The View that this scene is being looked at from
+	 * @return the number of projections which may be seen
+	 */
+	private int cull(PolygonProjection[] projections, int[] order, View view)
+	{
+		if(occlusionBuffer == null || occlusionBuffer.getWidth() != view.getWidth() || occlusionBuffer.getHeight() != view.getHeight())
+		{
+			occlusionBuffer = new OcclusionBuffer(view.getWidth(), view.getHeight());
+		}
+		else
+		{
+			occlusionBuffer.clear();
+		}
+		
+		if(visibleOrder.length < projections.length)
+		{
+			visibleOrder = new int[Math.max(projections.length, 2*visibleOrder.length)];
+		}
+		
+		int visibleCount = 0;
+		
+		for(int i = 0; i < projections.length; i ++)
+		{
+			if(occlusionBuffer.add(projections[order[i]]))
+			{
+				visibleOrder[visibleCount ++] = order[i];
+			}
+		}
+		
+		return visibleCount;
+	}
+	
+	/**
+	 * @return true if projections lying entirely behind nearer ones are discarded before drawing
+	 */
+	public boolean isOcclusionCulling()
+	{
+		return occlusionCulling;
+	}
+	
+	/**
+	 * @param occlusionCulling	the value representing whether projections lying entirely behind nearer ones are discarded before drawing
+	 */
+	public void setOcclusionCulling(boolean occlusionCulling)
+	{
+		this.occlusionCulling = occlusionCulling;
+	}
+	
+	/**
+	 * @return the polyhedra comprising this scene
+	 */
+	public ArrayList<Polyhedron3D> getPolyhedra()
+	{
+		return polyhedra;
+	}
+	
+	/**
+	 * @return the placements of shared polyhedra comprising this scene
+	 */
+	public ArrayList<PolyhedronInstance> getInstances()
+	{
+		return instances;
+	}
+}